@@ -0,0 +1,59 @@
+package world.bentobox.level;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import world.bentobox.level.objects.IslandLevels.DonationRecord;
+
+/**
+ * Archive of donation records that are too old to keep in the island level
+ * data. Each island has its own file that records are only ever appended to,
+ * one line per donation: timestamp, donor UUID, material, count and points.
+ */
+public class DonationArchive {
+
+    private final File folder;
+
+    /**
+     * @param folder - folder the archive files are kept in
+     */
+    public DonationArchive(@NonNull File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Add records to the end of an island's archive file
+     *
+     * @param islandId - island unique ID
+     * @param records  - records to add, oldest first
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void append(@NonNull String islandId, @NonNull List<DonationRecord> records)
+            throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (DonationRecord r : records) {
+            sb.append(r.timestamp()).append(',').append(r.donorUUID()).append(',').append(r.material()).append(',')
+                    .append(r.count()).append(',').append(r.points()).append('\n');
+        }
+        Files.createDirectories(folder.toPath());
+        Files.writeString(getFile(islandId).toPath(), sb, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @param islandId - island unique ID
+     * @return the archive file of the island
+     */
+    public File getFile(@NonNull String islandId) {
+        return new File(folder, islandId + ".csv");
+    }
+}
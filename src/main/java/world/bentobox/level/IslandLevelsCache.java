@@ -0,0 +1,378 @@
+package world.bentobox.level;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.Bukkit;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.level.objects.IslandLevels;
+
+/**
+ * Cache of island level data that can be used from any thread.
+ * <p>
+ * Islands that are not in the cache can be loaded on the calling thread, or
+ * loaded asynchronously so that the database is not read on the main thread.
+ * Only one load of an island runs at a time. Anyone else asking for the island
+ * while it is loading gets the result of that load.
+ * <p>
+ * The cache can be limited to an approximate size. {@link #evict(Set)} drops the
+ * least recently used islands until it is within the limit. Dropped islands are
+ * loaded again when they are next asked for.
+ * <p>
+ * Changes are not saved straight away. Islands are marked as changed and saved
+ * together by {@link #flush()}, so many changes to an island are saved in one
+ * write. Changed islands are never dropped before they are saved.
+ */
+public class IslandLevelsCache {
+
+    /**
+     * Cache statistics
+     *
+     * @param hits      - requests for islands that were cached
+     * @param misses    - islands loaded from the database
+     * @param evictions - islands dropped to keep within the size limit
+     * @param size      - number of cached islands
+     * @param weight    - approximate size of the cached islands in bytes when the
+     *                  cache was last checked
+     */
+    public record Stats(long hits, long misses, long evictions, int size, long weight) {
+    }
+
+    /**
+     * Save statistics
+     *
+     * @param pending   - changed islands waiting to be saved
+     * @param writes    - islands saved
+     * @param coalesced - changes saved in the same write as an earlier change
+     * @param flushes   - number of times waiting islands were saved
+     */
+    public record WriteStats(int pending, long writes, long coalesced, long flushes) {
+    }
+
+    private static final class Entry {
+        private final IslandLevels data;
+        private volatile long lastAccess;
+        private long weight;
+
+        private Entry(IslandLevels data) {
+            this.data = data;
+        }
+    }
+
+    /**
+     * A load of one island. Whoever starts it reads the database and everyone
+     * else waits for the future.
+     */
+    private static final class Load {
+        private final CompletableFuture<IslandLevels> future = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+    }
+
+    private final Level addon;
+    private final Database<IslandLevels> handler;
+    private final long maxWeight;
+    private final int batchSize;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<String, Load> loads = new ConcurrentHashMap<>();
+    /**
+     * Islands that were dropped and must be loaded before they are used again
+     */
+    private final Set<String> evicted = ConcurrentHashMap.newKeySet();
+    /**
+     * Islands that have changed since they were last saved
+     */
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong clock = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private volatile long weight;
+
+    /**
+     * @param addon   - addon
+     * @param handler - database handler for level data
+     */
+    public IslandLevelsCache(Level addon, Database<IslandLevels> handler) {
+        this(addon, handler, 0, 0);
+    }
+
+    /**
+     * @param addon     - addon
+     * @param handler   - database handler for level data
+     * @param maxWeight - approximate size limit in bytes, 0 for no limit
+     * @param batchSize - number of changed islands that are saved straight away
+     *                  instead of waiting for the next flush, 0 to always wait
+     */
+    public IslandLevelsCache(Level addon, Database<IslandLevels> handler, long maxWeight, int batchSize) {
+        this.addon = addon;
+        this.handler = handler;
+        this.maxWeight = maxWeight;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the data for an island, loading it on this thread if it is not cached
+     *
+     * @param id - island unique ID
+     * @return island level data
+     */
+    @NonNull
+    public IslandLevels get(@NonNull String id) {
+        IslandLevels ld = hit(id);
+        return ld != null ? ld : load(id);
+    }
+
+    /**
+     * Get the data for an island, loading it asynchronously if it is not cached
+     *
+     * @param id - island unique ID
+     * @return future that completes with the island level data
+     */
+    public CompletableFuture<IslandLevels> getAsync(@NonNull String id) {
+        IslandLevels ld = hit(id);
+        if (ld != null) {
+            return CompletableFuture.completedFuture(ld);
+        }
+        Load load = loads.computeIfAbsent(id, k -> new Load());
+        if (!load.started.get()) {
+            Bukkit.getScheduler().runTaskAsynchronously(addon.getPlugin(), () -> load(id));
+        }
+        return load.future;
+    }
+
+    /**
+     * Get the data for an island if it is cached. If it is not, it is loaded
+     * asynchronously so that it is ready next time.
+     *
+     * @param id - island unique ID
+     * @return island level data or null if it is not loaded yet
+     */
+    @Nullable
+    public IslandLevels getIfLoaded(@NonNull String id) {
+        IslandLevels ld = hit(id);
+        if (ld == null) {
+            getAsync(id);
+        }
+        return ld;
+    }
+
+    /**
+     * Load the islands that are not cached in one asynchronous task
+     *
+     * @param ids - island unique IDs
+     */
+    public void prefetch(@NonNull Collection<String> ids) {
+        List<String> missing = ids.stream().filter(id -> !cache.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            Bukkit.getScheduler().runTaskAsynchronously(addon.getPlugin(), () -> missing.forEach(this::get));
+        }
+    }
+
+    /**
+     * Get the data for an island if it is cached, or put new data in the cache
+     * without loading it. Islands that were dropped from the cache are loaded
+     * again so that their saved data is kept.
+     *
+     * @param id - island unique ID
+     * @return island level data
+     */
+    @NonNull
+    public IslandLevels getOrCreate(@NonNull String id) {
+        if (evicted.contains(id)) {
+            return get(id);
+        }
+        Entry e = cache.computeIfAbsent(id, k -> new Entry(new IslandLevels(k)));
+        e.lastAccess = clock.incrementAndGet();
+        return e.data;
+    }
+
+    /**
+     * @param id - island unique ID
+     * @return true if the island is cached
+     */
+    public boolean contains(@NonNull String id) {
+        return cache.containsKey(id);
+    }
+
+    /**
+     * Get the data for an island if it is cached, without loading it
+     *
+     * @param id - island unique ID
+     * @return island level data or null
+     */
+    @Nullable
+    public IslandLevels getCached(@NonNull String id) {
+        Entry e = cache.get(id);
+        return e == null ? null : e.data;
+    }
+
+    /**
+     * Remove an island from the cache
+     *
+     * @param id - island unique ID
+     */
+    public void remove(@NonNull String id) {
+        cache.remove(id);
+        evicted.remove(id);
+        dirty.remove(id);
+    }
+
+    /**
+     * Mark an island as changed so that it is saved by the next flush
+     *
+     * @param id - island unique ID
+     */
+    public void markDirty(@NonNull String id) {
+        if (!dirty.add(id)) {
+            coalesced.increment();
+        } else if (batchSize > 0 && dirty.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            // Enough has changed to save now rather than wait
+            Bukkit.getScheduler().runTask(addon.getPlugin(), this::flush);
+        }
+    }
+
+    /**
+     * Save the islands that have changed since they were last saved
+     *
+     * @return number of islands saved
+     */
+    public int flush() {
+        flushScheduled.set(false);
+        int count = 0;
+        Iterator<String> it = dirty.iterator();
+        while (it.hasNext()) {
+            String id = it.next();
+            // Unmark first so that a change made during the save is saved next time
+            it.remove();
+            Entry e = cache.get(id);
+            if (e != null) {
+                handler.saveObjectAsync(e.data);
+                count++;
+            }
+        }
+        if (count > 0) {
+            writes.add(count);
+            flushes.increment();
+        }
+        return count;
+    }
+
+    /**
+     * Drop the least recently used islands until the cache is within its size
+     * limit
+     *
+     * @param pinned - unique IDs of islands that must be kept
+     * @return number of islands dropped
+     */
+    public synchronized int evict(@NonNull Set<String> pinned) {
+        long total = 0;
+        List<Map.Entry<String, Entry>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Entry> en : cache.entrySet()) {
+            Entry e = en.getValue();
+            e.weight = e.data.estimateSize();
+            total += e.weight;
+            if (!pinned.contains(en.getKey()) && !dirty.contains(en.getKey())) {
+                candidates.add(en);
+            }
+        }
+        int count = 0;
+        if (maxWeight > 0 && total > maxWeight) {
+            candidates.sort(Comparator.comparingLong(en -> en.getValue().lastAccess));
+            for (Map.Entry<String, Entry> en : candidates) {
+                if (total <= maxWeight) {
+                    break;
+                }
+                // Only drop it if it has not been replaced or changed since
+                if (!dirty.contains(en.getKey()) && cache.remove(en.getKey(), en.getValue())) {
+                    evicted.add(en.getKey());
+                    total -= en.getValue().weight;
+                    count++;
+                }
+            }
+            evictions.add(count);
+        }
+        weight = total;
+        return count;
+    }
+
+    /**
+     * @return cache statistics
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), cache.size(), weight);
+    }
+
+    /**
+     * @return save statistics
+     */
+    public WriteStats getWriteStats() {
+        return new WriteStats(dirty.size(), writes.sum(), coalesced.sum(), flushes.sum());
+    }
+
+    private IslandLevels hit(String id) {
+        Entry e = cache.get(id);
+        if (e == null) {
+            return null;
+        }
+        e.lastAccess = clock.incrementAndGet();
+        hits.increment();
+        return e.data;
+    }
+
+    private IslandLevels load(String id) {
+        Load load = loads.computeIfAbsent(id, k -> new Load());
+        if (!load.started.compareAndSet(false, true)) {
+            // Another thread is loading this island
+            return load.future.join();
+        }
+        try {
+            Entry e = cache.get(id);
+            if (e == null) {
+                misses.increment();
+                Entry read = new Entry(read(id));
+                e = cache.putIfAbsent(id, read);
+                if (e == null) {
+                    e = read;
+                }
+                evicted.remove(id);
+            }
+            e.lastAccess = clock.incrementAndGet();
+            load.future.complete(e.data);
+            return e.data;
+        } catch (RuntimeException ex) {
+            load.future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loads.remove(id, load);
+        }
+    }
+
+    private IslandLevels read(String id) {
+        if (handler.objectExists(id)) {
+            IslandLevels ld = handler.loadObject(id);
+            if (ld != null) {
+                return ld;
+            }
+            // Clean up just in case
+            handler.deleteID(id);
+        }
+        return new IslandLevels(id);
+    }
+}
@@ -2,6 +2,7 @@ package world.bentobox.level;
 
 import java.io.File;
 import java.io.IOException;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +31,7 @@ import world.bentobox.bentobox.hooks.ItemsAdderHook;
 import world.bentobox.bentobox.hooks.OraxenHook;
 import world.bentobox.bentobox.managers.RanksManager;
 import world.bentobox.bentobox.util.Util;
+import world.bentobox.level.calculators.LevelFormula;
 import world.bentobox.level.calculators.Pipeliner;
 import world.bentobox.level.commands.AdminLevelCommand;
 import world.bentobox.level.commands.AdminLevelStatusCommand;
@@ -43,8 +45,10 @@ import world.bentobox.level.commands.IslandTopCommand;
 import world.bentobox.level.commands.IslandValueCommand;
 import world.bentobox.level.config.BlockConfig;
 import world.bentobox.level.config.ConfigSettings;
+import world.bentobox.level.listeners.ChunkChangeListener;
 import world.bentobox.level.listeners.IslandActivitiesListeners;
 import world.bentobox.level.listeners.JoinLeaveListener;
+import world.bentobox.level.listeners.LiveLevelListener;
 import world.bentobox.level.listeners.MigrationListener;
 import world.bentobox.level.requests.LevelRequestHandler;
 import world.bentobox.level.requests.TopTenRequestHandler;
@@ -103,6 +107,7 @@ public class Level extends Addon {
             setState(State.DISABLED);
         } else {
             configObject.saveConfigObject(settings);
+            compileLevelFormula();
         }
 
         // Save existing panels.
@@ -119,6 +124,18 @@ public class Level extends Addon {
         return settings == null;
     }
 
+    /**
+     * Compile the level formula now so that a bad formula is reported at startup
+     * instead of on every level calculation
+     */
+    private void compileLevelFormula() {
+        try {
+            LevelFormula.compile(settings.getLevelCalc());
+        } catch (ParseException e) {
+            logError("The level-calc formula in config.yml cannot be used: " + e.getMessage());
+        }
+    }
+
     @Override
     public void onEnable() {
         // Everything waits until allLoaded
@@ -154,6 +171,28 @@ public class Level extends Addon {
         registerListener(new IslandActivitiesListeners(this));
         registerListener(new JoinLeaveListener(this));
         registerListener(new MigrationListener(this));
+        // Permissions can change without an event, so check online players every minute
+        Bukkit.getScheduler().runTaskTimer(getPlugin(), () -> manager.checkTopTenPermissions(), 1200L, 1200L);
+        // Keep the island level data within its size limit
+        Bukkit.getScheduler().runTaskTimer(getPlugin(), () -> manager.evictLevelsCache(), 1200L, 1200L);
+        // Save changed levels together
+        long saveTicks = settings.getSaveIntervalSeconds() * 20L;
+        Bukkit.getScheduler().runTaskTimer(getPlugin(), () -> manager.saveLevels(), saveTicks, saveTicks);
+        if (settings.isIncrementalScans()) {
+            registerListener(new ChunkChangeListener(this));
+        }
+        if (settings.isLiveTracking() && !settings.isDonationsOnly()) {
+            registerListener(new LiveLevelListener(this));
+            startLiveTrackingTasks();
+        }
+    }
+
+    private void startLiveTrackingTasks() {
+        long reconcileTicks = settings.getLiveReconcileMinutes() * 1200L;
+        if (reconcileTicks > 0) {
+            Bukkit.getScheduler().runTaskTimer(getPlugin(), () -> manager.reconcileLiveLevels(), reconcileTicks,
+                    reconcileTicks);
+        }
     }
 
     private void registerGameModeCommands() {
@@ -290,6 +329,10 @@ public class Level extends Addon {
         if (this.pipeliner != null) {
             pipeliner.stop();
         }
+        // Save changed levels
+        if (this.manager != null) {
+            manager.saveLevels();
+        }
     }
 
     private void loadBlockSettings() {
@@ -0,0 +1,109 @@
+package world.bentobox.level;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.World;
+import org.eclipse.jdt.annotation.NonNull;
+
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.level.objects.IslandLevelSummary;
+
+/**
+ * Index of the island summaries that the rankings are built from. Summaries are
+ * updated whenever an island's level or team changes, and saved together with
+ * the island level data.
+ */
+public class LevelsIndex {
+
+    private final Database<IslandLevelSummary> handler;
+    private final Map<String, IslandLevelSummary> summaries = new ConcurrentHashMap<>();
+    /**
+     * Summaries that have changed since they were last saved
+     */
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param addon - addon
+     */
+    public LevelsIndex(Level addon) {
+        handler = new Database<>(addon, IslandLevelSummary.class);
+    }
+
+    /**
+     * Load all the summaries from the database
+     *
+     * @return summaries
+     */
+    public List<IslandLevelSummary> load() {
+        List<IslandLevelSummary> loaded = handler.loadObjects();
+        loaded.forEach(s -> summaries.putIfAbsent(s.getUniqueId(), s));
+        return loaded;
+    }
+
+    /**
+     * Update the summary of an island
+     *
+     * @param island - island
+     * @param level  - island level
+     */
+    public void update(@NonNull Island island, long level) {
+        World world = island.getWorld();
+        if (world == null) {
+            return;
+        }
+        IslandLevelSummary summary = summaries.computeIfAbsent(island.getUniqueId(), IslandLevelSummary::new);
+        if (summary.update(world.getName(), level, island.getMemberSet().size(), island.getOwner())) {
+            changed.add(island.getUniqueId());
+        }
+    }
+
+    /**
+     * Update the team of an island that has a summary
+     *
+     * @param island - island
+     */
+    public void updateTeam(@NonNull Island island) {
+        IslandLevelSummary summary = summaries.get(island.getUniqueId());
+        if (summary != null) {
+            update(island, summary.getLevel());
+        }
+    }
+
+    /**
+     * Remove the summary of an island
+     *
+     * @param id - island unique ID
+     */
+    public void remove(@NonNull String id) {
+        summaries.remove(id);
+        changed.remove(id);
+        if (handler.objectExists(id)) {
+            handler.deleteID(id);
+        }
+    }
+
+    /**
+     * Save the summaries that have changed
+     *
+     * @return number of summaries saved
+     */
+    public int flush() {
+        int count = 0;
+        Iterator<String> it = changed.iterator();
+        while (it.hasNext()) {
+            String id = it.next();
+            it.remove();
+            IslandLevelSummary summary = summaries.get(id);
+            if (summary != null) {
+                handler.saveObjectAsync(summary);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,40 +1,44 @@
 package world.bentobox.level;
 
+import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.text.ParseException;
-import java.time.Instant;
-import java.util.AbstractMap;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
-import com.google.common.collect.Maps;
-
 import world.bentobox.bentobox.database.Database;
 import world.bentobox.bentobox.database.objects.Island;
-import world.bentobox.level.calculators.EquationEvaluator;
+import world.bentobox.level.calculators.LevelFormula;
+import world.bentobox.level.calculators.LevelThresholds;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 import world.bentobox.level.calculators.Results;
+import world.bentobox.level.calculators.Results.Result;
+import world.bentobox.level.config.BlockValueTable;
 import world.bentobox.level.events.IslandLevelCalculatedEvent;
 import world.bentobox.level.events.IslandPreLevelEvent;
+import world.bentobox.level.objects.IslandLevelSummary;
 import world.bentobox.level.objects.IslandLevels;
+import world.bentobox.level.objects.IslandLevels.DonationRecord;
 import world.bentobox.level.objects.TopTenData;
-import world.bentobox.level.util.CachedData;
+import world.bentobox.level.util.BulkLoader;
+import world.bentobox.level.util.Utils;
 
 public class LevelsManager {
     private static final String INTOPTEN = "intopten";
@@ -45,11 +49,38 @@ public class LevelsManager {
     // Database handler for level data
     private final Database<IslandLevels> handler;
     // A cache of island levels.
-    private final Map<String, IslandLevels> levelsCache;
+    private final IslandLevelsCache levelsCache;
+    // Summaries of island levels that the rankings are built from
+    private final LevelsIndex levelsIndex;
+    // Donations that are too old to keep in the level data
+    private final DonationArchive donationArchive;
     // Top ten lists
     private final Map<World, TopTenData> topTenLists;
-    // Cache for top tens
-    private Map<World, CachedData> cache = new HashMap<>();
+    // Weighted top islands, kept while the weighted top snapshot does not change
+    private final Map<World, WeightedTop> weightedCache = new ConcurrentHashMap<>();
+
+    private record WeightedTop(Map<String, Long> ids, Map<Island, Long> islands) {
+    }
+    // Live tracked islands that need a reconciliation scan. Only used on the main thread.
+    private final Set<String> liveToReconcile = new HashSet<>();
+
+    /**
+     * The handling of one queued calculation. Whoever starts it fires the event
+     * and saves the results once, and everyone else waiting for the same
+     * calculation gets the result.
+     */
+    private static final class Calculation {
+        private final CompletableFuture<Results> scan;
+        private final CompletableFuture<Results> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Calculation(CompletableFuture<Results> scan) {
+            this.scan = scan;
+        }
+    }
+
+    // Calculations being handled, by island unique id
+    private final Map<String, Calculation> calculations = new ConcurrentHashMap<>();
 
     public LevelsManager(Level addon) {
         this.addon = addon;
@@ -59,7 +90,10 @@ public class LevelsManager {
         handler = new Database<>(addon, IslandLevels.class);
         
         // Initialize the cache
-        levelsCache = new HashMap<>();
+        levelsCache = new IslandLevelsCache(addon, handler, addon.getSettings().getLevelsCacheSizeMb() * 1024L * 1024L,
+                addon.getSettings().getSaveBatchSize());
+        levelsIndex = new LevelsIndex(addon);
+        donationArchive = new DonationArchive(new File(addon.getDataFolder(), "donations"));
         // Initialize top ten lists
         topTenLists = new ConcurrentHashMap<>();
         // Units
@@ -78,17 +112,40 @@ public class LevelsManager {
      * @return true if successful, false if not added
      */
     private boolean addToTopTen(Island island, long lv) {
+        if (island != null) {
+            levelsIndex.update(island, lv);
+        }
         if (island != null && island.getOwner() != null && island.getWorld() != null
                 && hasTopTenPerm(island.getWorld(), island.getOwner())) {
-            topTenLists.computeIfAbsent(island.getWorld(), k -> new TopTenData(island.getWorld())).getTopTen()
-                    .put(island.getUniqueId(), lv);
-            // Invalidate the cache for this world because of the update
-            cache.remove(island.getWorld());
+            TopTenData data = getTopTenData(island.getWorld());
+            data.getTopTen().put(island.getUniqueId(), lv);
+            data.getWeightedTopTen().put(island.getUniqueId(), getWeightedLevel(island.getMemberSet().size(), lv));
             return true;
         }
         return false;
     }
 
+    private static long getWeightedLevel(int members, long lv) {
+        return (long) (lv / (double) Math.max(1, members));
+    }
+
+    /**
+     * Update the weighted level of a ranked island after its members change
+     *
+     * @param island - island
+     */
+    public void updateWeightedLevel(@NonNull Island island) {
+        levelsIndex.updateTeam(island);
+        TopTenData data = island.getWorld() == null ? null : topTenLists.get(island.getWorld());
+        if (data == null) {
+            return;
+        }
+        Long lv = data.getTopTen().get(island.getUniqueId());
+        if (lv != null) {
+            data.getWeightedTopTen().put(island.getUniqueId(), getWeightedLevel(island.getMemberSet().size(), lv));
+        }
+    }
+
     /**
      * Calculate the island level, set all island member's levels to the result and
      * try to add the owner to the top ten
@@ -98,26 +155,113 @@ public class LevelsManager {
      * @return completable future with the results of the calculation
      */
     public CompletableFuture<Results> calculateLevel(UUID targetPlayer, Island island) {
-        CompletableFuture<Results> result = new CompletableFuture<>();
+        return calculateLevel(targetPlayer, island, Priority.ADMIN);
+    }
+
+    /**
+     * Calculate the island level, set all island member's levels to the result and
+     * try to add the owner to the top ten
+     * 
+     * @param targetPlayer - uuid of targeted player - owner or team member
+     * @param island       - island to calculate
+     * @param priority     - priority of the calculation in the queue
+     * @return completable future with the results of the calculation
+     */
+    public CompletableFuture<Results> calculateLevel(UUID targetPlayer, Island island, Priority priority) {
+        return calculateLevel(targetPlayer, island, priority, false);
+    }
+
+    /**
+     * Calculate the island level, set all island member's levels to the result and
+     * try to add the owner to the top ten
+     * 
+     * @param targetPlayer - uuid of targeted player - owner or team member
+     * @param island       - island to calculate
+     * @param priority     - priority of the calculation in the queue
+     * @param fullScan     - true to scan the island even if its level is tracked live
+     * @return completable future with the results of the calculation
+     */
+    public CompletableFuture<Results> calculateLevel(UUID targetPlayer, Island island, Priority priority,
+            boolean fullScan) {
         // Fire pre-level calc event
         IslandPreLevelEvent e = new IslandPreLevelEvent(targetPlayer, island);
         Bukkit.getPluginManager().callEvent(e);
         if (e.isCancelled()) {
             return CompletableFuture.completedFuture(null);
         }
-        // Add island to the pipeline
-        addon.getPipeliner().addIsland(island).thenAccept(r -> {
-            // Results are irrelevant because the island is unowned or deleted, or
-            // IslandLevelCalcEvent is cancelled
-            if (r == null || fireIslandLevelCalcEvent(targetPlayer, island, r)) {
-                result.complete(null);
-            }
-            // Save result
-            setIslandResults(island, r);
-            // Save the island scan details
-            result.complete(r);
-        });
-        return result;
+        if (!fullScan && isLiveLevel(island)) {
+            // The level is already up to date, so no scan is needed
+            return CompletableFuture.completedFuture(setLevelFromPoints(targetPlayer, island));
+        }
+        // Add island to the pipeline. An island that is already queued gets the same scan.
+        CompletableFuture<Results> scan = addon.getPipeliner().addIsland(island, priority);
+        String id = island.getUniqueId();
+        Calculation calc = calculations.compute(id,
+                (k, current) -> current != null && current.scan == scan ? current : new Calculation(scan));
+        if (calc.started.compareAndSet(false, true)) {
+            scan.whenComplete((r, ex) -> {
+                calculations.remove(id, calc);
+                if (ex != null) {
+                    calc.result.completeExceptionally(ex);
+                    return;
+                }
+                try {
+                    calc.result.complete(handleResults(targetPlayer, island, r));
+                } catch (RuntimeException e2) {
+                    calc.result.completeExceptionally(e2);
+                }
+            });
+        }
+        // Each caller gets its own view so that one caller cannot complete it for the others
+        return calc.result.copy();
+    }
+
+    /**
+     * Fire the calculated event for a scan and save the results. Called once per scan.
+     *
+     * @param targetPlayer - target player of the caller that queued the scan
+     * @param island       - island
+     * @param r            - scan results
+     * @return results, or null if the island is unowned or deleted, or the event
+     *         was canceled
+     */
+    @Nullable
+    private Results handleResults(UUID targetPlayer, Island island, @Nullable Results r) {
+        if (r == null) {
+            // The island is unowned or deleted, or the calculation failed
+            return null;
+        }
+        if (r.getState() != Result.AVAILABLE) {
+            // Timed out, so there is nothing to save
+            return r;
+        }
+        if (fireIslandLevelCalcEvent(targetPlayer, island, r)) {
+            return null;
+        }
+        setIslandResults(island, r);
+        return r;
+    }
+
+    /**
+     * Work out the level from the island's current total points without scanning
+     * it, and update the island and the top ten
+     *
+     * @param targetPlayer - target player
+     * @param island       - island
+     * @return results or null if the calculation was canceled
+     */
+    @Nullable
+    private Results setLevelFromPoints(UUID targetPlayer, Island island) {
+        Results r = getLiveResults(island);
+        if (fireIslandLevelCalcEvent(targetPlayer, island, r)) {
+            return null;
+        }
+        IslandLevels ld = getLevelsData(island);
+        ld.setLevel(r.getLevel());
+        ld.setPointsToNextLevel(r.getPointsToNextLevel());
+        levelsCache.markDirty(island.getUniqueId());
+        addToTopTen(island, ld.getLevel());
+        return r;
     }
 
     /**
@@ -217,22 +361,13 @@ public class LevelsManager {
      * @throws IOException if the number of blocks cannot be found for this level
      */
     private long getNumBlocks(final long initialLevel) throws ParseException, IOException {
-        String calcString = addon.getSettings().getLevelCalc();
-        int result = -1;
-        long calculatedLevel = 0;
-        String withCost = calcString.replace("level_cost", String.valueOf(this.addon.getSettings().getLevelCost()));
-        long time = System.currentTimeMillis() + 10 * 1000; // 10 seconds
-        do {
-            result++;
-            if (System.currentTimeMillis() > time) {
-                throw new IOException("Timeout: Blocks cannot be found to create this initial level");
-            }
-            // Paste in the values to the formula
-            String withValues = withCost.replace("blocks", String.valueOf(result));
-            // Try and evaluate it
-            calculatedLevel = (long) EquationEvaluator.eval(withValues);
-        } while (calculatedLevel != initialLevel);
-        return result;
+        LevelThresholds thresholds = LevelThresholds.get(LevelFormula.compile(addon.getSettings().getLevelCalc()),
+                this.addon.getSettings().getLevelCost(), 1);
+        long points = thresholds.getPoints(initialLevel);
+        if (points == LevelThresholds.UNREACHABLE || thresholds.getLevel(Math.max(0, points)) != initialLevel) {
+            throw new IOException("Blocks cannot be found to create this initial level");
+        }
+        return Math.max(0, points);
     }
 
     /**
@@ -303,25 +438,44 @@ public class LevelsManager {
      */
     @NonNull
     public IslandLevels getLevelsData(@NonNull Island island) {
-        String id = island.getUniqueId();
-        if (levelsCache.containsKey(id)) {
-            return levelsCache.get(id);
-        }
-        // Get from database if not in cache
-        if (handler.objectExists(id)) {
-            IslandLevels ld = handler.loadObject(id);
-            if (ld != null) {
-                levelsCache.put(id, ld);
-            } else {
-                // Clean up just in case 
-                handler.deleteID(id);
-                levelsCache.put(id, new IslandLevels(id));
-            }
-        } else {
-            levelsCache.put(id, new IslandLevels(id));
-        }
-        // Return cached value
-        return levelsCache.get(id);
+        return levelsCache.get(island.getUniqueId());
+    }
+
+    /**
+     * Load a level data for the island from the cache, or from the database
+     * asynchronously if it is not cached.
+     * 
+     * @param island - island
+     * @return future that completes with the IslandLevels object
+     */
+    public CompletableFuture<IslandLevels> getLevelsDataAsync(@NonNull Island island) {
+        return levelsCache.getAsync(island.getUniqueId());
+    }
+
+    /**
+     * Get the level data for the island if it is cached. If it is not, it is
+     * loaded asynchronously, so this never reads the database on the calling
+     * thread.
+     * 
+     * @param island - island
+     * @return IslandLevels object or null if it is still loading
+     */
+    @Nullable
+    public IslandLevels getLevelsDataIfLoaded(@NonNull Island island) {
+        return levelsCache.getIfLoaded(island.getUniqueId());
+    }
+
+    /**
+     * Load the level data of a player's islands in the background so that it is
+     * cached before it is needed
+     * 
+     * @param uuid - player UUID
+     */
+    public void prefetchIslands(@NonNull UUID uuid) {
+        List<String> ids = addon.getRegisteredGameModes().stream()
+                .flatMap(gm -> addon.getIslands().getIslands(gm.getOverWorld(), uuid).stream())
+                .map(Island::getUniqueId).toList();
+        levelsCache.prefetch(ids);
     }
 
     /**
@@ -339,6 +493,43 @@ public class LevelsManager {
         return island == null ? "" : String.valueOf(getLevelsData(island).getPointsToNextLevel());
     }
 
+    /**
+     * Get the total points an island needs for a level with the current level
+     * formula
+     *
+     * @param island - island
+     * @param level  - level
+     * @return total points, or {@link LevelThresholds#UNREACHABLE} if the level
+     *         cannot be reached
+     */
+    public long getPointsForLevel(@NonNull Island island, long level) {
+        LevelFormula formula = new LevelFormula(addon, island, getInitialCount(island));
+        long points = formula.getPointsForLevel(level);
+        if (points == LevelThresholds.UNREACHABLE) {
+            return points;
+        }
+        // Add back the points that the death penalty takes away
+        return points - formula.applyDeathPenalty(0, LevelFormula.getDeathHandicap(addon, island));
+    }
+
+    /**
+     * Get the total points needed for the next level as a string
+     *
+     * @param world        - world where the island is
+     * @param targetPlayer - target player UUID
+     * @return total points for the next level, or empty string if there is none
+     */
+    public String getPointsForNextLevelString(@NonNull World world, @Nullable UUID targetPlayer) {
+        if (targetPlayer == null)
+            return "";
+        Island island = addon.getIslands().getIsland(world, targetPlayer);
+        if (island == null) {
+            return "";
+        }
+        long points = getPointsForLevel(island, getLevelsData(island).getLevel() + 1);
+        return points == LevelThresholds.UNREACHABLE ? "" : String.valueOf(points);
+    }
+
     /**
      * Get the weighted top ten for this world. Weighting is based on number of
      * players per team.
@@ -349,27 +540,18 @@ public class LevelsManager {
      */
     @NonNull
     public Map<Island, Long> getWeightedTopTen(@NonNull World world, int size) {
-        createAndCleanRankings(world);
-        Map<Island, Long> weightedTopTen = topTenLists.get(world).getTopTen().entrySet().stream()
-                .map(en -> addon.getIslands().getIslandById(en.getKey()).map(island -> {
-
-                    long value = (long) (en.getValue() / (double) Math.max(1, island.getMemberSet().size())); // Calculate
-                    // weighted
-                    // value
-                    return new AbstractMap.SimpleEntry<>(island, value);
-                }).orElse(null)) // Handle islands that do not exist according to this ID - old deleted ones
-                .filter(Objects::nonNull) // Filter out null entries
-                .filter(en -> en.getValue() > 0) // Filter out entries with non-positive values
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue())) // Sort in descending order of values
-                .limit(size) // Limit to the top 'size' entries
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, // In case of key
-                        // collision, choose
-                        // the first one
-                        LinkedHashMap::new // Preserves the order of entries
-                ));
-
-        // Return the unmodifiable map
-        return Collections.unmodifiableMap(weightedTopTen);
+        Map<String, Long> top = getTopTenData(world).getWeightedTop(size);
+        WeightedTop cached = weightedCache.get(world);
+        if (cached != null && cached.ids() == top) {
+            return cached.islands();
+        }
+        Map<Island, Long> weightedTopTen = new LinkedHashMap<>();
+        // Islands that do not exist according to this ID are skipped - old deleted ones
+        top.forEach((id, value) -> addon.getIslands().getIslandById(id)
+                .ifPresent(island -> weightedTopTen.put(island, value)));
+        Map<Island, Long> result = Collections.unmodifiableMap(weightedTopTen);
+        weightedCache.put(world, new WeightedTop(top, result));
+        return result;
     }
 
     /**
@@ -382,31 +564,100 @@ public class LevelsManager {
      */
     @NonNull
     public Map<String, Long> getTopTen(@NonNull World world, int size) {
-        createAndCleanRankings(world);
-        CachedData cachedData = cache.get(world);
-        Instant now = Instant.now();
+        return getTopTenData(world).getTop(size);
+    }
 
-        if (cachedData != null && cachedData.getLastUpdated().plusSeconds(1).isAfter(now)) {
-            return cachedData.getCachedMap();
-        } else {
-            Map<String, Long> newTopTen = calculateTopTen(world, size);
-            cache.put(world, new CachedData(newTopTen, now));
-            return newTopTen;
+    /**
+     * Get the rankings for a world, making them if they do not exist yet. Islands
+     * are added and removed by level changes and events, so reading the rankings
+     * does not check every island.
+     * 
+     * @param world - world
+     * @return rankings
+     */
+    TopTenData getTopTenData(@NonNull World world) {
+        return topTenLists.computeIfAbsent(world, w -> new TopTenData(w, addon.getSettings().getTopSnapshotSize()));
+    }
+
+    /**
+     * Check whether the islands a player owns can be in the rankings, e.g., when the
+     * player joins or leaves or their permissions may have changed. Islands are
+     * removed if the owner is online without the intopten permission, and added
+     * back when the owner has the permission again or is offline.
+     * 
+     * @param owner - player UUID
+     */
+    public void updateTopTenPermission(@NonNull UUID owner) {
+        for (Map.Entry<World, TopTenData> en : topTenLists.entrySet()) {
+            World world = en.getKey();
+            boolean allowed = hasTopTenPerm(world, owner);
+            for (Island island : addon.getIslands().getIslands(world, owner)) {
+                if (!owner.equals(island.getOwner())) {
+                    continue;
+                }
+                boolean ranked = en.getValue().getTopTen().containsKey(island.getUniqueId());
+                if (!allowed && ranked) {
+                    removeEntry(world, island.getUniqueId());
+                } else if (allowed && !ranked) {
+                    // The island may still be loading after the player joined, so never load it here
+                    CompletableFuture<IslandLevels> data = getLevelsDataAsync(island);
+                    if (data.isDone() && !data.isCompletedExceptionally()) {
+                        rankIfAllowed(world, owner, island, data.join());
+                    } else {
+                        data.thenAccept(ld -> Bukkit.getScheduler().runTask(addon.getPlugin(),
+                                () -> rankIfAllowed(world, owner, island, ld)));
+                    }
+                }
+            }
         }
     }
 
-    private Map<String, Long> calculateTopTen(@NonNull World world, int size) {
-        return Collections.unmodifiableMap(topTenLists.get(world).getTopTen().entrySet().stream()
-                .filter(l -> l.getValue() > 0).sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .limit(size)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new)));
+    private void rankIfAllowed(World world, UUID owner, Island island, IslandLevels ld) {
+        long level = ld.getLevel();
+        if (level > 0 && owner.equals(island.getOwner()) && hasTopTenPerm(world, owner)) {
+            addToTopTen(island, level);
+        }
     }
 
-    void createAndCleanRankings(@NonNull World world) {
-        topTenLists.computeIfAbsent(world, TopTenData::new);
-        // Remove player from top ten if they are online and do not have the perm
-        topTenLists.get(world).getTopTen().keySet().removeIf(u -> addon.getIslands().getIslandById(u)
-                .filter(i -> i.getOwner() == null || !hasTopTenPerm(world, i.getOwner())).isPresent());
+    /**
+     * Drop the least recently used island level data if the cache is over its
+     * size limit. Online players' islands, top islands and islands with unsaved
+     * changes are kept.
+     * 
+     * @return number of islands dropped
+     */
+    public int evictLevelsCache() {
+        Set<String> pinned = new HashSet<>();
+        Bukkit.getOnlinePlayers().forEach(player -> addon.getRegisteredGameModes().forEach(gm -> addon.getIslands()
+                .getIslands(gm.getOverWorld(), player.getUniqueId()).forEach(i -> pinned.add(i.getUniqueId()))));
+        int size = addon.getSettings().getTopSnapshotSize();
+        topTenLists.values().forEach(data -> {
+            pinned.addAll(data.getTop(size).keySet());
+            pinned.addAll(data.getWeightedTop(size).keySet());
+        });
+        return levelsCache.evict(pinned);
+    }
+
+    /**
+     * @return statistics of the island level data cache
+     */
+    public IslandLevelsCache.Stats getLevelsCacheStats() {
+        return levelsCache.getStats();
+    }
+
+    /**
+     * Load the level data of every online player's islands in the background
+     */
+    public void prefetchOnlinePlayers() {
+        Bukkit.getOnlinePlayers().forEach(player -> prefetchIslands(player.getUniqueId()));
+    }
+
+    /**
+     * Check the intopten permission of every online player. Permissions can change
+     * without an event, so this is run every so often.
+     */
+    public void checkTopTenPermissions() {
+        Bukkit.getOnlinePlayers().forEach(player -> updateTopTenPermission(player.getUniqueId()));
     }
 
     /**
@@ -424,13 +675,9 @@ public class LevelsManager {
      * @return rank placing - note - placing of 1 means top ranked
      */
     public int getRank(@NonNull World world, UUID uuid) {
-        createAndCleanRankings(world);
-        Stream<Entry<String, Long>> stream = topTenLists.get(world).getTopTen().entrySet().stream()
-                .filter(l -> l.getValue() > 0).sorted(Collections.reverseOrder(Map.Entry.comparingByValue()));
         // Get player's current island
         Island island = addon.getIslands().getIsland(world, uuid);
-        String id = island == null ? null : island.getUniqueId();
-        return (int) (stream.takeWhile(x -> !x.getKey().equals(id)).map(Map.Entry::getKey).count() + 1);
+        return getTopTenData(world).getRank(island == null ? null : island.getUniqueId());
     }
 
     /**
@@ -447,23 +694,55 @@ public class LevelsManager {
     }
 
     /**
-     * Loads all the top tens from the database
+     * Loads all the top tens from the database. They are built from the island
+     * summaries, so the full level data of each island is not loaded. If there
+     * are no summaries yet, the full level data is loaded once to make them.
      */
     public void loadTopTens() {
         topTenLists.clear();
         Bukkit.getScheduler().runTaskAsynchronously(addon.getPlugin(), () -> {
             addon.log("Generating rankings");
-            handler.loadObjects().forEach(il -> {
-                if (il.getLevel() > 0) {
-                    // Load islands, but don't cache them
-                    addon.getIslands().getIslandById(il.getUniqueId(), false)
-                            .ifPresent(i -> this.addToTopTen(i, il.getLevel()));
-                }
-            });
+            List<IslandLevelSummary> summaries = levelsIndex.load();
+            if (summaries.isEmpty()) {
+                new BulkLoader<>(addon, handler, addon.getSettings().getLoadThreads(), "island levels")
+                        .load(addon.getIslands().getAllIslandIds(), il -> {
+                            if (il.getLevel() > 0) {
+                                // Load islands, but don't cache them
+                                addon.getIslands().getIslandById(il.getUniqueId(), false)
+                                        .ifPresent(i -> this.addToTopTen(i, il.getLevel()));
+                            }
+                        });
+                levelsIndex.flush();
+            } else {
+                summaries.forEach(this::addToTopTen);
+            }
             topTenLists.keySet().forEach(w -> addon.log("Generated rankings for " + w.getName()));
         });
     }
 
+    private void addToTopTen(IslandLevelSummary summary) {
+        if (summary.getLevel() <= 0 || summary.getOwner() == null || summary.getWorld() == null) {
+            return;
+        }
+        // The island may have been deleted or changed owner since the summary was saved
+        Island island = addon.getIslands().getIslandById(summary.getUniqueId()).orElse(null);
+        if (island == null || island.isDeleted()) {
+            levelsIndex.remove(summary.getUniqueId());
+            return;
+        }
+        if (!summary.getOwner().equals(island.getOwner())) {
+            addToTopTen(island, summary.getLevel());
+            return;
+        }
+        World world = Bukkit.getWorld(summary.getWorld());
+        if (world != null && hasTopTenPerm(world, summary.getOwner())) {
+            TopTenData data = getTopTenData(world);
+            data.getTopTen().put(summary.getUniqueId(), summary.getLevel());
+            data.getWeightedTopTen().put(summary.getUniqueId(),
+                    getWeightedLevel(summary.getMembers(), summary.getLevel()));
+        }
+    }
+
     /**
      * Removes an island from a world's top ten
      * 
@@ -473,8 +752,7 @@ public class LevelsManager {
     public void removeEntry(World world, String uuid) {
         if (topTenLists.containsKey(world)) {
             topTenLists.get(world).getTopTen().remove(uuid);
-            // Invalidate the cache because of this deletion
-            cache.remove(world);
+            topTenLists.get(world).getWeightedTopTen().remove(uuid);
         }
     }
 
@@ -485,8 +763,9 @@ public class LevelsManager {
      * @param lv     - initial island count
      */
     public void setInitialIslandCount(@NonNull Island island, long lv) {
-        levelsCache.computeIfAbsent(island.getUniqueId(), IslandLevels::new).setInitialCount(lv);
-        handler.saveObjectAsync(levelsCache.get(island.getUniqueId()));
+        IslandLevels ld = levelsCache.getOrCreate(island.getUniqueId());
+        ld.setInitialCount(lv);
+        levelsCache.markDirty(island.getUniqueId());
     }
 
     /**
@@ -501,11 +780,11 @@ public class LevelsManager {
         Island island = addon.getIslands().getIsland(world, targetPlayer);
         if (island != null) {
             String id = island.getUniqueId();
-            IslandLevels il = levelsCache.computeIfAbsent(id, IslandLevels::new);
+            IslandLevels il = levelsCache.getOrCreate(id);
             il.setLevel(lv);
-            handler.saveObjectAsync(levelsCache.get(id));
+            levelsCache.markDirty(id);
             // Update TopTen
-            addToTopTen(island, levelsCache.get(id).getLevel());
+            addToTopTen(island, il.getLevel());
         }
     }
 
@@ -520,14 +799,13 @@ public class LevelsManager {
     private void setIslandResults(Island island, Results r) {
         if (island == null)
             return;
-        IslandLevels ld = levelsCache.computeIfAbsent(island.getUniqueId(), IslandLevels::new);
+        IslandLevels ld = levelsCache.getOrCreate(island.getUniqueId());
         ld.setLevel(r.getLevel());
-        ld.setUwCount(Maps.asMap(r.getUwCount().elementSet(), elem -> r.getUwCount().count(elem)));
-        ld.setMdCount(Maps.asMap(r.getMdCount().elementSet(), elem -> r.getMdCount().count(elem)));
+        ld.setUwCount(r.getUwCounter().toMap());
+        ld.setMdCount(r.getMdCounter().toMap());
         ld.setPointsToNextLevel(r.getPointsToNextLevel());
         ld.setTotalPoints(r.getTotalPoints());
-        levelsCache.put(island.getUniqueId(), ld);
-        handler.saveObjectAsync(ld);
+        levelsCache.markDirty(island.getUniqueId());
         // Update TopTen
         addToTopTen(island, ld.getLevel());
     }
@@ -539,6 +817,7 @@ public class LevelsManager {
      */
     public void deleteIsland(String uniqueId) {
         levelsCache.remove(uniqueId);
+        levelsIndex.remove(uniqueId);
         handler.deleteID(uniqueId);
     }
 
@@ -555,21 +834,79 @@ public class LevelsManager {
      */
     public void donateBlocks(@NonNull Island island, @NonNull UUID donorUUID, @NonNull String material, int count, long points) {
         IslandLevels ld = getLevelsData(island);
+        boolean counted = isCounted(island);
+        long before = counted ? getDonatedPointsValue(island, ld) : 0;
         ld.addDonation(donorUUID.toString(), material, count, points);
-        handler.saveObjectAsync(ld);
+        if (counted) {
+            // Add the change in value so that the level can be updated without a scan
+            ld.setTotalPoints(ld.getTotalPoints() + getDonatedPointsValue(island, ld) - before);
+        }
+        levelsCache.markDirty(island.getUniqueId());
+        List<DonationRecord> archived = ld.takeArchivedDonations();
+        if (!archived.isEmpty()) {
+            String id = island.getUniqueId();
+            Bukkit.getScheduler().runTaskAsynchronously(addon.getPlugin(), () -> {
+                try {
+                    donationArchive.append(id, archived);
+                } catch (IOException e) {
+                    addon.logError("Could not archive donations for island " + id + ": " + e.getMessage());
+                }
+            });
+        }
     }
 
     /**
-     * Queue a full level recalculation for the island. Call this after donations
-     * so that the level/top-ten update immediately.
+     * Update the island's level after donations so that the level/top-ten update
+     * immediately. The donations are already in the island's total points, so the
+     * island is only scanned if it has never been counted.
      *
      * @param island the island to recalculate
      */
     public void recalculateAfterDonation(@NonNull Island island) {
         UUID owner = island.getOwner();
-        if (owner != null) {
-            calculateLevel(owner, island);
+        if (owner == null) {
+            return;
+        }
+        if (isCounted(island)) {
+            IslandPreLevelEvent e = new IslandPreLevelEvent(owner, island);
+            Bukkit.getPluginManager().callEvent(e);
+            if (!e.isCancelled()) {
+                setLevelFromPoints(owner, island);
+            }
+        } else {
+            calculateLevel(owner, island, Priority.PLAYER, true);
+        }
+    }
+
+    /**
+     * Checks if the island's total points are known without a scan. In
+     * donations-only mode they are just the donations. Otherwise the island must
+     * have been scanned.
+     *
+     * @param island the island
+     * @return true if the total points include everything on the island
+     */
+    private boolean isCounted(@NonNull Island island) {
+        if (addon.getSettings().isDonationsOnly()) {
+            return true;
         }
+        return hasLiveCounts(getLevelsData(island));
+    }
+
+    private static boolean hasLiveCounts(IslandLevels ld) {
+        return !ld.getMdCount().isEmpty() || !ld.getUwCount().isEmpty();
+    }
+
+    /**
+     * Get the points that the island's donations are worth with the current block
+     * values and limits, the same as a full calculation
+     *
+     * @param island the island
+     * @param ld     the island's level data
+     * @return donated points
+     */
+    private long getDonatedPointsValue(@NonNull Island island, @NonNull IslandLevels ld) {
+        return Utils.calculateDonatedPoints(addon.getBlockConfig(), island.getWorld(), ld.getDonatedBlocks());
     }
 
     /**
@@ -592,4 +929,191 @@ public class LevelsManager {
         return getLevelsData(island).getDonatedBlocks();
     }
 
+    /**
+     * Get the total points donated by each player to an island.
+     *
+     * @param island the island
+     * @return map of donor UUID to points
+     */
+    public Map<String, Long> getDonorPoints(@NonNull Island island) {
+        return getLevelsData(island).getDonorPoints();
+    }
+
+
+    // ---- Live Level Methods ----
+
+    /**
+     * Checks if the island's level is tracked live. An island is only tracked once it
+     * has been scanned, so that there are counts to apply block changes to.
+     *
+     * @param island - island
+     * @return true if the level is tracked live
+     */
+    public boolean isLiveLevel(@NonNull Island island) {
+        if (!addon.getSettings().isLiveTracking() || addon.getSettings().isDonationsOnly()) {
+            return false;
+        }
+        return hasLiveCounts(getLevelsData(island));
+    }
+
+    /**
+     * Get the results for a live tracked island without scanning it
+     *
+     * @param island - island
+     * @return results
+     */
+    private Results getLiveResults(@NonNull Island island) {
+        IslandLevels ld = getLevelsData(island);
+        long initialCount = getInitialCount(island);
+        LevelFormula formula = new LevelFormula(addon, island, initialCount);
+        Results r = new Results();
+        r.setInitialCount(initialCount);
+        r.setDeathHandicap(LevelFormula.getDeathHandicap(addon, island));
+        r.setTotalPoints(ld.getTotalPoints());
+        long points = formula.applyDeathPenalty(ld.getTotalPoints(), r.getDeathHandicap());
+        long level = formula.calculateLevel(points);
+        r.setLevel(level);
+        r.setPointsToNextLevel(formula.getPointsToNextLevel(points, level));
+        r.setPointsFromCurrentLevel(formula.getPointsFromCurrentLevel(points, level));
+        r.setReport(List.of("Live tracked level for island " + island.getUniqueId(),
+                "Total points = " + ld.getTotalPoints(), "New level = " + level));
+        return r;
+    }
+
+    /**
+     * Apply a block change to a live tracked island. The island's counts, points and
+     * level are updated using the current block values and limits.
+     *
+     * @param island        - island
+     * @param block         - Material, EntityType or namespaced ID of the block
+     * @param belowSeaLevel - true if the block is below sea level
+     * @param delta         - number of blocks added, or negative if removed
+     */
+    public void applyBlockChange(@NonNull Island island, @NonNull Object block, boolean belowSeaLevel, int delta) {
+        if (!addon.getSettings().isLiveTracking() || addon.getSettings().isDonationsOnly()) {
+            liveToReconcile.add(island.getUniqueId());
+            return;
+        }
+        // Never load the data here because this runs for every block placed or broken
+        IslandLevels ld = getLevelsDataIfLoaded(island);
+        if (ld == null || !hasLiveCounts(ld)) {
+            // No counts yet, so the next reconciliation will scan the island
+            liveToReconcile.add(island.getUniqueId());
+            return;
+        }
+        BlockValueTable table = addon.getBlockConfig().getValueTable(island.getWorld());
+        Map<Object, Integer> mdCount = ld.getMdCount();
+        Map<Object, Integer> uwCount = ld.getUwCount();
+        int md = mdCount.getOrDefault(block, 0);
+        int uw = uwCount.getOrDefault(block, 0);
+        long before = getPoints(table, block, md, uw);
+        if (belowSeaLevel) {
+            uw = Math.max(0, uw + delta);
+            setCount(uwCount, block, uw);
+        } else {
+            md = Math.max(0, md + delta);
+            setCount(mdCount, block, md);
+        }
+        long pointsDelta = getPoints(table, block, md, uw) - before;
+        levelsCache.markDirty(island.getUniqueId());
+        liveToReconcile.add(island.getUniqueId());
+        if (pointsDelta == 0) {
+            return;
+        }
+        ld.setTotalPoints(ld.getTotalPoints() + pointsDelta);
+        // Work out the new level
+        LevelFormula formula = new LevelFormula(addon, island, getInitialCount(island));
+        long points = formula.applyDeathPenalty(ld.getTotalPoints(), LevelFormula.getDeathHandicap(addon, island));
+        long level = formula.calculateLevel(points);
+        ld.setLevel(level);
+        ld.setPointsToNextLevel(formula.getPointsToNextLevel(points, level));
+        addToTopTen(island, level);
+    }
+
+    /**
+     * Scan a live tracked island at the next reconciliation without changing its
+     * counts now, e.g., because a change cannot be tracked block by block
+     *
+     * @param island - island
+     */
+    public void reconcileLater(@NonNull Island island) {
+        liveToReconcile.add(island.getUniqueId());
+    }
+
+    private static void setCount(Map<Object, Integer> counts, Object block, int count) {
+        if (count == 0) {
+            counts.remove(block);
+        } else {
+            counts.put(block, count);
+        }
+    }
+
+    /**
+     * Get the points for a block using the same value and limit rules as a full
+     * calculation. Blocks above sea level use up the limit first.
+     *
+     * @param table - block values and limits
+     * @param block - block
+     * @param md    - count above sea level
+     * @param uw    - count below sea level
+     * @return points
+     */
+    private long getPoints(BlockValueTable table, Object block, int md, int uw) {
+        int value = table.value(block);
+        if (value == BlockValueTable.UNSET) {
+            return 0;
+        }
+        int limit = table.limit(block);
+        // Blocks are counted until the number already counted goes past the limit
+        long max = limit == BlockValueTable.UNSET ? Long.MAX_VALUE : (long) limit + 1;
+        long mdCounted = Math.min(md, max);
+        long uwCounted = Math.min(uw, max - mdCounted);
+        return mdCounted * value + (long) (uwCounted * value * addon.getSettings().getUnderWaterMultiplier());
+    }
+
+    /**
+     * Forget the counts of a live tracked island, e.g., because it has been reset.
+     * The island will be scanned the next time its level is calculated.
+     *
+     * @param island - island
+     */
+    public void clearLiveCounts(@NonNull Island island) {
+        if (levelsCache.contains(island.getUniqueId()) || handler.objectExists(island.getUniqueId())) {
+            IslandLevels ld = getLevelsData(island);
+            ld.setMdCount(new HashMap<>());
+            ld.setUwCount(new HashMap<>());
+            levelsCache.markDirty(island.getUniqueId());
+        }
+        liveToReconcile.remove(island.getUniqueId());
+    }
+
+    /**
+     * Save the islands that have changed since the last save. Each island is
+     * saved once however many times it has changed.
+     * 
+     * @return number of islands saved
+     */
+    public int saveLevels() {
+        levelsIndex.flush();
+        return levelsCache.flush();
+    }
+
+    /**
+     * @return save statistics of the island level data
+     */
+    public IslandLevelsCache.WriteStats getLevelsWriteStats() {
+        return levelsCache.getWriteStats();
+    }
+
+    /**
+     * Fully scan the live tracked islands that have changed since the last
+     * reconciliation, so that any changes that were not tracked are counted
+     */
+    public void reconcileLiveLevels() {
+        liveToReconcile.forEach(id -> addon.getIslands().getIslandById(id)
+                .filter(island -> island.getOwner() != null)
+                .ifPresent(island -> calculateLevel(island.getOwner(), island, Priority.BACKGROUND, true)));
+        liveToReconcile.clear();
+    }
+
 }
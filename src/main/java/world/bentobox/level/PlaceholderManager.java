@@ -89,12 +89,17 @@ public class PlaceholderManager {
                 user -> String.valueOf(addon.getManager().getIslandLevel(gm.getOverWorld(), user.getUniqueId())));
         // Total number of points counted before applying level formula
         bpm.registerPlaceholder(addon, gm.getDescription().getName().toLowerCase() + "_island_total_points", user -> {
-            IslandLevels data = addon.getManager().getLevelsData(addon.getIslands().getIsland(gm.getOverWorld(), user));
-            return data.getTotalPoints() + "";
+            Island island = addon.getIslands().getIsland(gm.getOverWorld(), user);
+            // Placeholders do not wait for the database
+            IslandLevels data = island == null ? null : addon.getManager().getLevelsDataIfLoaded(island);
+            return data == null ? "0" : data.getTotalPoints() + "";
         });
         // Points to the next level for player
         bpm.registerPlaceholder(addon, gm.getDescription().getName().toLowerCase() + "_points_to_next_level",
                 user -> addon.getManager().getPointsToNextString(gm.getOverWorld(), user.getUniqueId()));
+        // Total points the island needs for the next level
+        bpm.registerPlaceholder(addon, gm.getDescription().getName().toLowerCase() + "_island_points_for_next_level",
+                user -> addon.getManager().getPointsForNextLevelString(gm.getOverWorld(), user.getUniqueId()));
         // Maximum level this island has ever been. Current level maybe lower.
         bpm.registerPlaceholder(addon, gm.getDescription().getName().toLowerCase() + "_island_level_max",
                 user -> String.valueOf(addon.getManager().getIslandMaxLevel(gm.getOverWorld(), user.getUniqueId())));
@@ -347,8 +352,8 @@ public class PlaceholderManager {
         }
         // Get the island level for this user
         long level = addon.getManager().getIslandLevel(world, user.getUniqueId());
-        return String.valueOf(addon.getManager().getTopTenLists().getOrDefault(world, new TopTenData(world)).getTopTen()
-                .values().stream().filter(l -> l > level).count() + 1);
+        return String.valueOf(
+                addon.getManager().getTopTenLists().getOrDefault(world, new TopTenData(world)).countAbove(level) + 1);
     }
 
     /**
@@ -615,7 +620,7 @@ public class PlaceholderManager {
      * - Fetches the Island for the user and then the IslandLevels data.
      * - IslandLevels stores counts in two maps (mdCount and uwCount) depending on how values
      *   are classified; we add both to provide the complete count.
-     * - Returns "0" if island or data is unavailable.
+     * - Returns "0" if island or data is unavailable, e.g., while the data is loading.
      *
      * @param gm GameModeAddon
      * @param user User to get count for
@@ -628,7 +633,7 @@ public class PlaceholderManager {
             return "0";
         }
 
-        IslandLevels data = addon.getManager().getLevelsData(island);
+        IslandLevels data = addon.getManager().getLevelsDataIfLoaded(island);
         if (data == null) {
             return "0";
         }
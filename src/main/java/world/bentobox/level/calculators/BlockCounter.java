@@ -0,0 +1,368 @@
+package world.bentobox.level.calculators;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+
+/**
+ * Counts blocks found on an island. Materials are counted in an array indexed by
+ * their ordinal, so counting a block is a single array increment. Spawner entity
+ * types and custom namespaced block IDs are kept in small side tables.
+ * <p>
+ * This class is not thread-safe. Each scan worker fills its own counter and the
+ * counters are merged with {@link #addAll(BlockCounter)}.
+ */
+public class BlockCounter {
+
+    private static final Material[] MATERIALS = Material.values();
+
+    private final int[] materialCounts = new int[MATERIALS.length];
+    /**
+     * Spawner counts by entity type ordinal. Created when the first spawner is counted.
+     */
+    private int[] entityCounts;
+    /**
+     * Counts of custom blocks by namespaced ID. Created when the first custom block is counted.
+     */
+    private Map<String, Integer> customCounts;
+    private long size;
+
+    /**
+     * Count one block
+     * @param material - block material
+     */
+    public void add(Material material) {
+        materialCounts[material.ordinal()]++;
+        size++;
+    }
+
+    /**
+     * Count one block
+     * @param key - Material, EntityType or namespaced ID of the block
+     */
+    public void add(Object key) {
+        add(key, 1);
+    }
+
+    /**
+     * Count a number of blocks
+     * @param key - Material, EntityType or namespaced ID of the block
+     * @param amount - number of blocks to add
+     */
+    public void add(Object key, int amount) {
+        if (amount == 0) {
+            return;
+        }
+        switch (key) {
+        case Material material -> materialCounts[material.ordinal()] += amount;
+        case EntityType entityType -> {
+            if (entityCounts == null) {
+                entityCounts = new int[EntityType.values().length];
+            }
+            entityCounts[entityType.ordinal()] += amount;
+        }
+        case String id -> {
+            if (customCounts == null) {
+                customCounts = new HashMap<>();
+            }
+            customCounts.merge(id, amount, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        default -> throw new IllegalArgumentException("Cannot count " + key);
+        }
+        size += amount;
+    }
+
+    /**
+     * @param key - Material, EntityType or namespaced ID of the block
+     * @return number of these blocks counted
+     */
+    public int count(Object key) {
+        return switch (key) {
+        case Material material -> materialCounts[material.ordinal()];
+        case EntityType entityType -> entityCounts == null ? 0 : entityCounts[entityType.ordinal()];
+        case String id -> customCounts == null ? 0 : customCounts.getOrDefault(id, 0);
+        case null, default -> 0;
+        };
+    }
+
+    /**
+     * @return true if nothing has been counted
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return total number of blocks counted
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Adds all the counts from another counter to this one
+     * @param other - counter to add
+     */
+    public void addAll(BlockCounter other) {
+        if (other.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < materialCounts.length; i++) {
+            materialCounts[i] += other.materialCounts[i];
+        }
+        if (other.entityCounts != null) {
+            if (entityCounts == null) {
+                entityCounts = new int[other.entityCounts.length];
+            }
+            for (int i = 0; i < entityCounts.length; i++) {
+                entityCounts[i] += other.entityCounts[i];
+            }
+        }
+        if (other.customCounts != null) {
+            if (customCounts == null) {
+                customCounts = new HashMap<>();
+            }
+            other.customCounts.forEach((id, count) -> customCounts.merge(id, count, Integer::sum));
+        }
+        size += other.size;
+    }
+
+    /**
+     * Runs an action for every block that has a count. Materials are visited first,
+     * then spawners, then custom blocks.
+     * @param action - action taking the block key and its count
+     */
+    public void forEach(ObjIntConsumer<Object> action) {
+        for (int i = 0; i < materialCounts.length; i++) {
+            if (materialCounts[i] != 0) {
+                action.accept(MATERIALS[i], materialCounts[i]);
+            }
+        }
+        if (entityCounts != null) {
+            EntityType[] entityTypes = EntityType.values();
+            for (int i = 0; i < entityCounts.length; i++) {
+                if (entityCounts[i] != 0) {
+                    action.accept(entityTypes[i], entityCounts[i]);
+                }
+            }
+        }
+        if (customCounts != null) {
+            customCounts.forEach(action::accept);
+        }
+    }
+
+    /**
+     * @return the number of different blocks counted
+     */
+    public int distinct() {
+        int[] distinct = new int[1];
+        forEach((key, count) -> distinct[0]++);
+        return distinct[0];
+    }
+
+    /**
+     * Copies the blocks and their counts into arrays, in the same order as {@link #forEach(ObjIntConsumer)}
+     * @param keys - array of at least {@link #distinct()} elements for the blocks
+     * @param counts - array of at least {@link #distinct()} elements for the counts
+     */
+    public void toArrays(Object[] keys, int[] counts) {
+        int[] i = new int[1];
+        forEach((key, count) -> {
+            keys[i[0]] = key;
+            counts[i[0]++] = count;
+        });
+    }
+
+    /**
+     * @return the counts as a new map keyed by Material, EntityType or namespaced ID
+     */
+    public Map<Object, Integer> toMap() {
+        Map<Object, Integer> map = new HashMap<>();
+        forEach(map::put);
+        return map;
+    }
+
+    /**
+     * @return the counts as entries sorted with the highest count first
+     */
+    public List<Map.Entry<Object, Integer>> entriesByCount() {
+        List<Map.Entry<Object, Integer>> entries = new ArrayList<>();
+        forEach((key, count) -> entries.add(Map.entry(key, count)));
+        entries.sort(Map.Entry.<Object, Integer>comparingByValue(Comparator.reverseOrder()));
+        return entries;
+    }
+
+    /**
+     * Get a view of this counter as a Guava multiset. Changes to the view change
+     * this counter. The element and entry sets are copies.
+     * @return multiset view
+     */
+    public Multiset<Object> asMultiset() {
+        return new MultisetView();
+    }
+
+    @Override
+    public String toString() {
+        return "BlockCounter " + toMap();
+    }
+
+    /**
+     * Multiset backed by the counter, for code that used the multisets this
+     * class replaced
+     */
+    private class MultisetView extends AbstractCollection<Object> implements Multiset<Object> {
+
+        @Override
+        public int size() {
+            return (int) Math.min(Integer.MAX_VALUE, size);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return BlockCounter.this.isEmpty();
+        }
+
+        @Override
+        public int count(Object element) {
+            return BlockCounter.this.count(element);
+        }
+
+        @Override
+        public boolean contains(Object element) {
+            return count(element) > 0;
+        }
+
+        @Override
+        public int add(Object element, int occurrences) {
+            if (occurrences < 0) {
+                throw new IllegalArgumentException("occurrences cannot be negative: " + occurrences);
+            }
+            int old = count(element);
+            BlockCounter.this.add(element, occurrences);
+            return old;
+        }
+
+        @Override
+        public boolean add(Object element) {
+            BlockCounter.this.add(element, 1);
+            return true;
+        }
+
+        @Override
+        public int remove(Object element, int occurrences) {
+            if (occurrences < 0) {
+                throw new IllegalArgumentException("occurrences cannot be negative: " + occurrences);
+            }
+            int old = count(element);
+            if (old > 0) {
+                BlockCounter.this.add(element, -Math.min(old, occurrences));
+            }
+            return old;
+        }
+
+        @Override
+        public boolean remove(Object element) {
+            return remove(element, 1) > 0;
+        }
+
+        @Override
+        public int setCount(Object element, int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("count cannot be negative: " + count);
+            }
+            int old = count(element);
+            BlockCounter.this.add(element, count - old);
+            return old;
+        }
+
+        @Override
+        public boolean setCount(Object element, int oldCount, int newCount) {
+            if (count(element) != oldCount) {
+                return false;
+            }
+            setCount(element, newCount);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            for (Map.Entry<Object, Integer> en : toMap().entrySet()) {
+                BlockCounter.this.add(en.getKey(), -en.getValue());
+            }
+        }
+
+        @Override
+        public Set<Object> elementSet() {
+            Set<Object> elements = new LinkedHashSet<>();
+            BlockCounter.this.forEach((key, count) -> elements.add(key));
+            return Collections.unmodifiableSet(elements);
+        }
+
+        @Override
+        public Set<Multiset.Entry<Object>> entrySet() {
+            Set<Multiset.Entry<Object>> entries = new LinkedHashSet<>();
+            BlockCounter.this.forEach((key, count) -> entries.add(Multisets.immutableEntry(key, count)));
+            return Collections.unmodifiableSet(entries);
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            // Repeats each block count times, without making a list of every block
+            Iterator<Multiset.Entry<Object>> entries = entrySet().iterator();
+            return new Iterator<>() {
+                private Object key;
+                private int left;
+
+                @Override
+                public boolean hasNext() {
+                    while (left <= 0 && entries.hasNext()) {
+                        Multiset.Entry<Object> en = entries.next();
+                        key = en.getElement();
+                        left = en.getCount();
+                    }
+                    return left > 0;
+                }
+
+                @Override
+                public Object next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    left--;
+                    return key;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o == this || (o instanceof Multiset<?> other && size() == other.size()
+                    && entrySet().equals(other.entrySet()));
+        }
+
+        @Override
+        public int hashCode() {
+            return entrySet().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return entrySet().toString();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package world.bentobox.level.calculators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import world.bentobox.bentobox.database.objects.Island;
+
+/**
+ * Keeps the block counts of each island chunk from the last scan, so that a
+ * later calculation only needs to rescan chunks that have changed. A chunk's
+ * counts are thrown away as soon as a block in it changes.
+ * <p>
+ * The number of islands kept can be limited. When there are more, all the
+ * counts of the least recently used island are dropped.
+ * <p>
+ * Only used on the main thread, except for {@link #size()}.
+ */
+public class ChunkCountStore {
+
+    /**
+     * Block counts of one chunk, plus the blocks in it that are checked at the end
+     * of every calculation.
+     *
+     * @param islandId      - unique id of the island that was scanned
+     * @param bounds        - protected bounds of the island when it was scanned
+     * @param mdKeys        - blocks above sea level
+     * @param mdCounts      - counts of mdKeys
+     * @param uwKeys        - blocks below sea level
+     * @param uwCounts      - counts of uwKeys
+     * @param spawners      - spawner locations and whether they are below sea level
+     * @param stackedBlocks - locations of possible stacked blocks
+     * @param chests        - true if the chunk has containers
+     * @param furniture     - true if the chunk should be checked for furniture
+     * @param stacked       - true if a stacker plugin added stack sizes to the counts
+     */
+    record ChunkCounts(String islandId, long bounds, Object[] mdKeys, int[] mdCounts, Object[] uwKeys,
+            int[] uwCounts, Map<Location, Boolean> spawners, List<Location> stackedBlocks, boolean chests,
+            boolean furniture, boolean stacked) {
+    }
+
+    /**
+     * Marks a chunk that is being scanned. If the chunk changes before the scan is
+     * stored, the marker is removed and the scan is not stored.
+     */
+    static final class Pending {
+    }
+
+    private final Map<World, Map<Long, Object>> chunks = new ConcurrentHashMap<>();
+    /**
+     * Islands that have stored counts, least recently used first
+     */
+    private final Map<String, Boolean> islands = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxIslands;
+
+    /**
+     * Store with no limit on the number of islands
+     */
+    public ChunkCountStore() {
+        this(0);
+    }
+
+    /**
+     * @param maxIslands - number of islands that counts are kept for, 0 for no limit
+     */
+    public ChunkCountStore(int maxIslands) {
+        this.maxIslands = maxIslands;
+    }
+
+    private static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get a number that changes if the island's protected area changes
+     * @param island - island
+     * @return bounds value
+     */
+    static long bounds(Island island) {
+        return ((long) island.getMinProtectedX() * 31 + island.getMinProtectedZ()) * 31 + island.getProtectionRange();
+    }
+
+    /**
+     * Forget the counts of a chunk because a block in it has changed
+     * @param world - world
+     * @param chunkX - chunk x coordinate
+     * @param chunkZ - chunk z coordinate
+     */
+    public void invalidate(World world, int chunkX, int chunkZ) {
+        Map<Long, Object> worldChunks = chunks.get(world);
+        if (worldChunks != null) {
+            worldChunks.remove(key(chunkX, chunkZ));
+        }
+    }
+
+    /**
+     * Get the stored counts for an island chunk
+     * @param world - world
+     * @param chunkX - chunk x coordinate
+     * @param chunkZ - chunk z coordinate
+     * @param island - island being calculated
+     * @return counts, or null if the chunk has to be scanned
+     */
+    ChunkCounts get(World world, int chunkX, int chunkZ, Island island) {
+        Map<Long, Object> worldChunks = chunks.get(world);
+        if (worldChunks != null && worldChunks.get(key(chunkX, chunkZ)) instanceof ChunkCounts counts
+                && counts.islandId().equals(island.getUniqueId()) && counts.bounds() == bounds(island)) {
+            islands.get(counts.islandId());
+            return counts;
+        }
+        return null;
+    }
+
+    /**
+     * Marks that a chunk is about to be scanned. Must be called in the same tick
+     * that the chunk snapshot is taken.
+     * @param world - world
+     * @param chunkX - chunk x coordinate
+     * @param chunkZ - chunk z coordinate
+     * @return marker to pass to {@link #put(World, int, int, Pending, ChunkCounts)}
+     */
+    Pending startScan(World world, int chunkX, int chunkZ) {
+        Pending pending = new Pending();
+        chunks.computeIfAbsent(world, k -> new ConcurrentHashMap<>()).put(key(chunkX, chunkZ), pending);
+        return pending;
+    }
+
+    /**
+     * Stores the counts of a scanned chunk unless the chunk changed after it was
+     * scanned. Counts that include stack sizes are not stored because a stack can
+     * grow without the chunk being changed.
+     * @param world - world
+     * @param chunkX - chunk x coordinate
+     * @param chunkZ - chunk z coordinate
+     * @param pending - marker from {@link #startScan(World, int, int)}
+     * @param counts - counts to store
+     */
+    void put(World world, int chunkX, int chunkZ, Pending pending, ChunkCounts counts) {
+        Map<Long, Object> worldChunks = chunks.get(world);
+        if (worldChunks != null && counts.stacked()) {
+            worldChunks.remove(key(chunkX, chunkZ), pending);
+            return;
+        }
+        if (worldChunks != null && worldChunks.replace(key(chunkX, chunkZ), pending, counts)) {
+            islands.put(counts.islandId(), Boolean.TRUE);
+            evict();
+        }
+    }
+
+    /**
+     * Drop the least recently used islands until the number of islands is within the limit
+     */
+    private void evict() {
+        if (maxIslands <= 0) {
+            return;
+        }
+        while (islands.size() > maxIslands) {
+            Iterator<String> it = islands.keySet().iterator();
+            String eldest = it.next();
+            it.remove();
+            removeCounts(eldest);
+        }
+    }
+
+    /**
+     * Forget all the counts for an island
+     * @param islandId - island unique id
+     */
+    public void removeIsland(String islandId) {
+        islands.remove(islandId);
+        removeCounts(islandId);
+    }
+
+    private void removeCounts(String islandId) {
+        chunks.values().forEach(worldChunks -> worldChunks.values()
+                .removeIf(v -> v instanceof ChunkCounts counts && counts.islandId().equals(islandId)));
+    }
+
+    /**
+     * Forget everything
+     */
+    public void clear() {
+        chunks.clear();
+        islands.clear();
+    }
+
+    /**
+     * @return number of chunks stored
+     */
+    public int size() {
+        return chunks.values().stream().mapToInt(Map::size).sum();
+    }
+}
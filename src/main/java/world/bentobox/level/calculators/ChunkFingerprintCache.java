@@ -0,0 +1,204 @@
+package world.bentobox.level.calculators;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.level.Level;
+import world.bentobox.level.calculators.ChunkCountStore.ChunkCounts;
+import world.bentobox.level.calculators.IslandLevelCalculator.ChunkRef;
+import world.bentobox.level.objects.IslandChunkCounts;
+import world.bentobox.level.objects.IslandChunkCounts.ChunkEntry;
+
+/**
+ * Saves the block counts of each island chunk with a fingerprint of the chunk,
+ * so that a chunk that has not changed since it was last scanned can use its
+ * saved counts instead of being scanned again, even after a restart.
+ * <p>
+ * The fingerprint is the chunk's inhabited time. It only goes up while players
+ * are near the chunk, so chunks that nobody has been near keep the same
+ * fingerprint. Chunks with spawners or stacked blocks are not saved because they
+ * need checking on every calculation.
+ * <p>
+ * An island's saved counts are loaded asynchronously by {@link #load(Island)}
+ * before its chunks are scanned, and are only used on the main thread after that.
+ */
+public class ChunkFingerprintCache {
+
+    private final Level addon;
+    private final Database<IslandChunkCounts> handler;
+    /**
+     * Islands that are being calculated
+     */
+    private final Map<String, IslandChunkCounts> cache = new HashMap<>();
+
+    /**
+     * @param addon - addon
+     */
+    public ChunkFingerprintCache(Level addon) {
+        this.addon = addon;
+        handler = new Database<>(addon, IslandChunkCounts.class);
+    }
+
+    private static String key(ChunkRef ref) {
+        return ref.world().getName() + "," + ref.x() + "," + ref.z();
+    }
+
+    /**
+     * Get a number that changes if the island's protected area or sea height changes
+     * @param island - island
+     * @param seaHeight - sea height
+     * @return layout value
+     */
+    static long layout(Island island, int seaHeight) {
+        return ChunkCountStore.bounds(island) * 31 + seaHeight;
+    }
+
+    /**
+     * Load the saved counts of an island from the database asynchronously. Must be
+     * called on the main thread before the island's chunks are scanned.
+     * @param island - island about to be calculated
+     * @return future that completes on the main thread when the counts are loaded.
+     *         It never completes exceptionally; if the counts cannot be loaded, the
+     *         island starts with none.
+     */
+    CompletableFuture<Void> load(Island island) {
+        String id = island.getUniqueId();
+        if (cache.containsKey(id)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(addon.getPlugin(), () -> {
+            IslandChunkCounts loaded = null;
+            try {
+                loaded = handler.objectExists(id) ? handler.loadObject(id) : null;
+            } catch (Exception e) {
+                addon.logError("Could not load chunk counts for island " + id + ": " + e.getMessage());
+            }
+            IslandChunkCounts counts = loaded == null ? new IslandChunkCounts(id) : loaded;
+            Bukkit.getScheduler().runTask(addon.getPlugin(), () -> {
+                cache.putIfAbsent(id, counts);
+                result.complete(null);
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Get the saved counts for a chunk if the chunk has not changed
+     * @param island - island being calculated
+     * @param ref - chunk
+     * @param fingerprint - current fingerprint of the chunk
+     * @param seaHeight - sea height
+     * @return counts, or null if the chunk has to be scanned
+     */
+    ChunkCounts get(Island island, ChunkRef ref, long fingerprint, int seaHeight) {
+        IslandChunkCounts saved = cache.get(island.getUniqueId());
+        ChunkEntry entry = saved == null ? null : saved.getChunks().get(key(ref));
+        if (entry == null || entry.getFingerprint() != fingerprint
+                || entry.getLayout() != layout(island, seaHeight)) {
+            return null;
+        }
+        Object[] mdKeys = new Object[entry.getMdCount().size()];
+        int[] mdCounts = new int[mdKeys.length];
+        Object[] uwKeys = new Object[entry.getUwCount().size()];
+        int[] uwCounts = new int[uwKeys.length];
+        if (!fromMap(entry.getMdCount(), mdKeys, mdCounts) || !fromMap(entry.getUwCount(), uwKeys, uwCounts)) {
+            // A material no longer exists
+            return null;
+        }
+        return new ChunkCounts(island.getUniqueId(), ChunkCountStore.bounds(island), mdKeys, mdCounts, uwKeys,
+                uwCounts, Map.of(), List.of(), entry.isChests(), entry.isFurniture(), false);
+    }
+
+    private static boolean fromMap(Map<String, Integer> map, Object[] keys, int[] counts) {
+        int i = 0;
+        for (Map.Entry<String, Integer> en : map.entrySet()) {
+            // Namespaced IDs have a colon, material names do not
+            if (en.getKey().indexOf(':') >= 0) {
+                keys[i] = en.getKey();
+            } else {
+                keys[i] = Material.getMaterial(en.getKey());
+                if (keys[i] == null) {
+                    return false;
+                }
+            }
+            counts[i++] = en.getValue();
+        }
+        return true;
+    }
+
+    /**
+     * Save the counts of a scanned chunk
+     * @param island - island being calculated
+     * @param ref - chunk
+     * @param fingerprint - fingerprint of the chunk when it was scanned
+     * @param seaHeight - sea height
+     * @param counts - chunk counts
+     */
+    void put(Island island, ChunkRef ref, long fingerprint, int seaHeight, ChunkCounts counts) {
+        IslandChunkCounts saved = cache.get(island.getUniqueId());
+        if (saved == null) {
+            // Not loaded, so saving would lose the other chunks
+            return;
+        }
+        Map<String, ChunkEntry> chunks = saved.getChunks();
+        Map<String, Integer> mdCount = toMap(counts.mdKeys(), counts.mdCounts());
+        Map<String, Integer> uwCount = toMap(counts.uwKeys(), counts.uwCounts());
+        // Spawners, stacked blocks and stack sizes can change without the chunk changing
+        if (!counts.spawners().isEmpty() || !counts.stackedBlocks().isEmpty() || counts.stacked()
+                || mdCount == null || uwCount == null) {
+            chunks.remove(key(ref));
+            return;
+        }
+        chunks.put(key(ref), new ChunkEntry(fingerprint, layout(island, seaHeight), mdCount, uwCount,
+                counts.chests(), counts.furniture()));
+    }
+
+    private static Map<String, Integer> toMap(Object[] keys, int[] counts) {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            switch (keys[i]) {
+            case Material m -> map.put(m.name(), counts[i]);
+            case String s -> map.put(s, counts[i]);
+            default -> {
+                // Spawner types are not saved
+                return null;
+            }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Save the counts of an island after it has been calculated and stop holding
+     * them in memory
+     * @param island - island
+     */
+    void save(Island island) {
+        IslandChunkCounts counts = cache.remove(island.getUniqueId());
+        if (counts != null) {
+            handler.saveObjectAsync(counts);
+        }
+    }
+
+    /**
+     * Delete the saved counts of an island. The database is not touched on the
+     * calling thread.
+     * @param islandId - island unique id
+     */
+    public void removeIsland(String islandId) {
+        cache.remove(islandId);
+        Bukkit.getScheduler().runTaskAsynchronously(addon.getPlugin(), () -> {
+            if (handler.objectExists(islandId)) {
+                handler.deleteID(islandId);
+            }
+        });
+    }
+}
@@ -1,14 +1,31 @@
 package world.bentobox.level.calculators;
 
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Utility class to evaluate equations
  */
 public class EquationEvaluator {
 
+    /**
+     * A compiled equation that can be evaluated many times without parsing it again
+     */
+    @FunctionalInterface
+    public interface Expression {
+        /**
+         * Evaluate the equation
+         * @param variables - values of the variables, in the order they were given to
+         *                  {@link EquationEvaluator#compile(String, String...)}
+         * @return the result
+         */
+        double evaluate(double[] variables);
+    }
+
     private static class Parser {
         private final String input;
+        private final List<String> variables;
         private int pos = -1;
         private int currentChar;
 
@@ -17,8 +34,9 @@ public class EquationEvaluator {
             throw new IllegalStateException("Utility class");
         }
 
-        public Parser(String input) {
+        public Parser(String input, List<String> variables) {
             this.input = input;
+            this.variables = variables;
             moveToNextChar();
         }
 
@@ -37,35 +55,41 @@ public class EquationEvaluator {
             return false;
         }
 
-        public double evaluate() throws ParseException {
-            double result = parseExpression();
+        public Expression compile() throws ParseException {
+            Expression result = parseExpression();
             if (pos < input.length()) {
                 throw new ParseException("Unexpected character: " + (char) currentChar, pos);
             }
             return result;
         }
 
-        private double parseExpression() throws ParseException {
-            double result = parseTerm();
+        private Expression parseExpression() throws ParseException {
+            Expression result = parseTerm();
             while (true) {
                 if (tryToEat('+')) {
-                    result += parseTerm();
+                    Expression a = result;
+                    Expression b = parseTerm();
+                    result = v -> a.evaluate(v) + b.evaluate(v);
                 } else if (tryToEat('-')) {
-                    result -= parseTerm();
+                    Expression a = result;
+                    Expression b = parseTerm();
+                    result = v -> a.evaluate(v) - b.evaluate(v);
                 } else {
                     return result;
                 }
             }
         }
 
-        private double parseFactor() throws ParseException {
+        private Expression parseFactor() throws ParseException {
             if (tryToEat('+')) {
                 return parseFactor(); // unary plus
             }
             if (tryToEat('-')) {
-                return -parseFactor(); // unary minus
+                Expression a = parseFactor();
+                return v -> -a.evaluate(v); // unary minus
             }
-            double x;
+            Expression x;
+            boolean variable = false;
             int startPos = this.pos;
             if (tryToEat('(')) { // parentheses
                 x = parseExpression();
@@ -74,48 +98,88 @@ public class EquationEvaluator {
                 while ((currentChar >= '0' && currentChar <= '9') || currentChar == '.') {
                     moveToNextChar();
                 }
-                x = Double.parseDouble(input.substring(startPos, this.pos));
-            } else if (currentChar >= 'a' && currentChar <= 'z') { // functions
-                while (currentChar >= 'a' && currentChar <= 'z') {
+                double number = Double.parseDouble(input.substring(startPos, this.pos));
+                x = v -> number;
+            } else if ((currentChar >= 'a' && currentChar <= 'z') || currentChar == '_') { // variables and functions
+                while ((currentChar >= 'a' && currentChar <= 'z') || currentChar == '_') {
                     moveToNextChar();
                 }
-                String func = input.substring(startPos, this.pos);
-                x = parseFactor();
-                x = switch (func) {
-                case "sqrt" -> Math.sqrt(x);
-                case "sin" -> Math.sin(Math.toRadians(x));
-                case "cos" -> Math.cos(Math.toRadians(x));
-                case "tan" -> Math.tan(Math.toRadians(x));
-                case "log" -> Math.log(x);
-                default -> throw new ParseException("Unknown function: " + func, startPos);
-                };
+                String name = input.substring(startPos, this.pos);
+                int index = variables.indexOf(name);
+                if (index >= 0) {
+                    x = v -> v[index];
+                    variable = true;
+                } else {
+                    x = parseFunction(name, startPos);
+                }
             } else {
                 throw new ParseException("Unexpected: " + (char) currentChar, startPos);
             }
 
             if (tryToEat('^')) {
-                x = Math.pow(x, parseFactor()); // exponentiation
+                Expression base = x;
+                Expression exponent = parseFactor();
+                if (variable) {
+                    // A negative variable value keeps its sign, e.g., blocks^2 is -25 when blocks is -5.
+                    // This matches how the formula was evaluated when values were pasted into it.
+                    x = v -> {
+                        double b = base.evaluate(v);
+                        return b < 0 ? -Math.pow(-b, exponent.evaluate(v)) : Math.pow(b, exponent.evaluate(v));
+                    };
+                } else {
+                    x = v -> Math.pow(base.evaluate(v), exponent.evaluate(v)); // exponentiation
+                }
             }
 
             return x;
         }
 
-        private double parseTerm() throws ParseException {
-            double x = parseFactor();
+        private Expression parseFunction(String func, int startPos) throws ParseException {
+            Expression a = parseFactor();
+            return switch (func) {
+            case "sqrt" -> v -> Math.sqrt(a.evaluate(v));
+            case "sin" -> v -> Math.sin(Math.toRadians(a.evaluate(v)));
+            case "cos" -> v -> Math.cos(Math.toRadians(a.evaluate(v)));
+            case "tan" -> v -> Math.tan(Math.toRadians(a.evaluate(v)));
+            case "log" -> v -> Math.log(a.evaluate(v));
+            default -> throw new ParseException("Unknown function: " + func, startPos);
+            };
+        }
+
+        private Expression parseTerm() throws ParseException {
+            Expression x = parseFactor();
             for (;;) {
-                if (tryToEat('*'))
-                    x *= parseFactor(); // multiplication
-                else if (tryToEat('/'))
-                    x /= parseFactor(); // division
-                else
+                if (tryToEat('*')) {
+                    Expression a = x;
+                    Expression b = parseFactor();
+                    x = v -> a.evaluate(v) * b.evaluate(v); // multiplication
+                } else if (tryToEat('/')) {
+                    Expression a = x;
+                    Expression b = parseFactor();
+                    x = v -> a.evaluate(v) / b.evaluate(v); // division
+                } else {
                     return x;
+                }
             }
         }
 
     }
 
+    private static final double[] NO_VARIABLES = new double[0];
+
     public static double eval(final String equation) throws ParseException {
-        return new Parser(equation).evaluate();
+        return compile(equation).evaluate(NO_VARIABLES);
+    }
+
+    /**
+     * Compile an equation so that it can be evaluated many times
+     * @param equation - equation
+     * @param variables - names of the variables used in the equation
+     * @return compiled equation
+     * @throws ParseException if the equation cannot be parsed
+     */
+    public static Expression compile(final String equation, String... variables) throws ParseException {
+        return new Parser(equation, Arrays.asList(variables)).compile();
     }
 
 }
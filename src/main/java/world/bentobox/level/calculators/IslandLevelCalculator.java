@@ -1,13 +1,11 @@
 package world.bentobox.level.calculators;
 
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -16,6 +14,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
@@ -29,8 +28,6 @@ import org.bukkit.block.BlockState;
 import org.bukkit.block.Container;
 import org.bukkit.block.CreatureSpawner;
 import org.bukkit.block.ShulkerBox;
-import org.bukkit.block.data.BlockData;
-import org.bukkit.block.data.type.Slab;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.inventory.ItemStack;
@@ -40,9 +37,6 @@ import io.th0rgal.oraxen.mechanics.provided.gameplay.furniture.FurnitureMechanic
 
 import com.bgsoftware.wildstacker.api.WildStackerAPI;
 import com.bgsoftware.wildstacker.api.objects.StackedBarrel;
-import com.google.common.collect.Multiset;
-import com.google.common.collect.Multiset.Entry;
-import com.google.common.collect.Multisets;
 import com.nexomc.nexo.api.NexoBlocks;
 import com.nexomc.nexo.api.NexoFurniture;
 import com.nexomc.nexo.api.NexoItems;
@@ -57,22 +51,21 @@ import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.bentobox.hooks.CraftEngineHook;
 import world.bentobox.bentobox.hooks.ItemsAdderHook;
 import world.bentobox.bentobox.hooks.OraxenHook;
-import world.bentobox.bentobox.util.Pair;
 import world.bentobox.bentobox.util.Util;
 import world.bentobox.level.Level;
+import world.bentobox.level.calculators.ChunkCountStore.ChunkCounts;
 import world.bentobox.level.calculators.Results.Result;
 import world.bentobox.level.config.BlockConfig;
+import world.bentobox.level.config.BlockValueTable;
 import world.bentobox.level.util.Utils;
 
 public class IslandLevelCalculator {
     private final UUID calcId = UUID.randomUUID();  // ID for hashing
     private static final String LINE_BREAK = "==================================";
     public static final long MAX_AMOUNT = 10000000;
-    private static final int CHUNKS_TO_SCAN = 100;
     private final Level addon;
-    private final Queue<Pair<Integer, Integer>> chunksToCheck;
+    private final Queue<ChunkRef> chunksToCheck;
     private final Island island;
-    private final Map<Object, Integer> limitCount;
     private final CompletableFuture<Results> r;
 
     private final Results results;
@@ -81,9 +74,24 @@ public class IslandLevelCalculator {
     private final Map<Environment, World> worlds = new EnumMap<>(Environment.class);
     private final int seaHeight;
     private final List<Location> stackedBlocks = new ArrayList<>();
-    private final Set<Chunk> chestBlocks = new HashSet<>();
-    private final Set<Chunk> furnitureChunks = new HashSet<>();
+    private final Set<ChunkRef> chestBlocks = new HashSet<>();
+    private final Set<ChunkRef> furnitureChunks = new HashSet<>();
     private final Map<Location, Boolean> spawners = new HashMap<>();
+    /**
+     * Chunks that have been requested but not yet scanned and merged. Only used on the main thread.
+     */
+    private int chunksInFlight;
+    /**
+     * True while chunks are being requested, so that a chunk that is done straight
+     * away does not start requesting chunks again inside the request loop
+     */
+    private boolean fetching;
+    /**
+     * True if sections that are all air can be counted as plain air without
+     * looking at each block. Set when the scan starts.
+     */
+    private boolean skipEmptySections;
+    private CompletableFuture<Boolean> scanDone;
 
     /**
      * Constructor to get the level for an island
@@ -101,8 +109,6 @@ public class IslandLevelCalculator {
         this.zeroIsland = zeroIsland;
         results = new Results();
         duration = System.currentTimeMillis();
-        chunksToCheck = getChunksToScan(island);
-        this.limitCount = new HashMap<>();
         // Get the initial island level
         // TODO: results.initialLevel.set(addon.getInitialIslandLevel(island));
         results.setInitialCount(addon.getInitialIslandCount(island));
@@ -124,109 +130,40 @@ public class IslandLevelCalculator {
         }
         // Sea Height
         seaHeight = addon.getPlugin().getIWM().getSeaHeight(island.getWorld());
+        chunksToCheck = getChunksToScan(island);
     }
 
     /**
-     * Calculate the level based on the raw points
-     * 
-     * @param rawPoints - raw points counted on island
-     * @return level of island
-     */
-    private long calculateLevel(final long rawPoints) {
-        String calcString = addon.getSettings().getLevelCalc();
-        // Reduce count by initial count, if zeroing is done. In donations-only
-        // mode the initial count is ignored — it was recorded from a one-off
-        // scan of the starter island and would push the level wildly negative
-        // when subtracted from donation-only points (e.g. when an admin enables
-        // this mode mid-game on islands that already have an initial count).
-        long modifiedPoints = rawPoints
-                - (addon.getSettings().isZeroNewIslandLevels() && !addon.getSettings().isDonationsOnly()
-                        ? results.initialCount.get() : 0);
-        // Paste in the values to the formula
-        // Use Math.max(1, ...) to prevent division by zero if island_members is used in the formula
-        int memberCount = Math.max(1, this.island.getMemberSet().size());
-        String withValues = calcString.replace("island_members", String.valueOf(memberCount))
-                .replace("blocks", String.valueOf(modifiedPoints))
-                .replace("level_cost", String.valueOf(this.addon.getSettings().getLevelCost()));
-        // Try and evaluate it
-        try {
-            return (long) EquationEvaluator.eval(withValues);
-        } catch (ParseException e) {
-            // Hmm, error.
-            addon.getPlugin().logStacktrace(e);
-            return 0L;
-        }
-    }
-
-    /**
-     * Adds value to the results based on the namespacedId and whether the block is
-     * below sea level or not
-     * 
-     * @param namespacedId   - namespacedId of the block
-     * @param belowSeaLevel - true if below sea level
-     */
-    private void checkBlock(String namespacedId, boolean belowSeaLevel) {
-        int count = limitCountAndValue(namespacedId);
-        if (belowSeaLevel) {
-            results.underWaterBlockCount.addAndGet(count);
-            results.uwCount.add(namespacedId);
-        } else {
-            results.rawBlockCount.addAndGet(count);
-            results.mdCount.add(namespacedId);
-        }
-    }
-
-    /**
-     * Adds value to the results based on the material and whether the block is
-     * below sea level or not
+     * Counts a block in the results based on whether the block is below sea level
+     * or not. Values and limits are applied later when the counts are scored.
      * 
-     * @param mat           - material of the block
+     * @param obj           - Material, EntityType, or namespacedId of the block
      * @param belowSeaLevel - true if below sea level
      */
-    private void checkBlock(Material mat, boolean belowSeaLevel) {
-        int count = limitCountAndValue(mat);
+    private void checkBlock(Object obj, boolean belowSeaLevel) {
         if (belowSeaLevel) {
-            results.underWaterBlockCount.addAndGet(count);
-            results.uwCount.add(mat);
+            results.uwCount.add(obj);
         } else {
-            results.rawBlockCount.addAndGet(count);
-            results.mdCount.add(mat);
+            results.mdCount.add(obj);
         }
     }
 
     /**
-     * Adds value to the results based on the material and whether the block is
-     * below sea level or not
-     * 
-     * @param mat           - material of the block
-     * @param belowSeaLevel - true if below sea level
-     */
-    private void checkSpawner(EntityType et, boolean belowSeaLevel) {
-        Integer count = limitCountAndValue(et);
-        if (count != null) {
-            if (belowSeaLevel) {
-                results.underWaterBlockCount.addAndGet(count);
-                results.uwCount.add(et);
-            } else {
-                results.rawBlockCount.addAndGet(count);
-                results.mdCount.add(et);
-            }
-        }
-    }
-
-    /**
-     * Get a set of all the chunks in island
+     * Get a set of all the chunks in island in all the worlds being scanned. The
+     * worlds are interleaved so that they are fetched at the same time.
      * 
      * @param island - island
-     * @return - set of pairs of x,z coordinates to check
+     * @return - queue of chunks to check
      */
-    private Queue<Pair<Integer, Integer>> getChunksToScan(Island island) {
-        Queue<Pair<Integer, Integer>> chunkQueue = new ConcurrentLinkedQueue<>();
+    private Queue<ChunkRef> getChunksToScan(Island island) {
+        Queue<ChunkRef> chunkQueue = new ConcurrentLinkedQueue<>();
         for (int x = island.getMinProtectedX(); x < (island.getMinProtectedX() + island.getProtectionRange() * 2
                 + 16); x += 16) {
             for (int z = island.getMinProtectedZ(); z < (island.getMinProtectedZ() + island.getProtectionRange() * 2
                     + 16); z += 16) {
-                chunkQueue.add(new Pair<>(x >> 4, z >> 4));
+                for (World world : worlds.values()) {
+                    chunkQueue.add(new ChunkRef(world, x >> 4, z >> 4));
+                }
             }
         }
         return chunkQueue;
@@ -287,16 +224,12 @@ public class IslandLevelCalculator {
 
         reportLines.add(
                 "Blocks not counted because they exceeded limits: " + String.format("%,d", results.ofCount.size()));
-        Iterable<Multiset.Entry<Object>> entriesSortedByCount = results.ofCount.entrySet();
-        Iterator<Entry<Object>> it = entriesSortedByCount.iterator();
-        while (it.hasNext()) {
-
-            Entry<Object> type = it.next();
-            Integer limit = addon.getBlockConfig().getLimit(type.getElement());
+        results.ofCount.forEach((type, count) -> {
+            Integer limit = addon.getBlockConfig().getLimit(type);
             String explain = ")";
-            reportLines.add(Util.prettifyText(type.toString()) + ": " + String.format("%,d", type.getCount())
+            reportLines.add(Util.prettifyText(type.toString()) + ": " + String.format("%,d", count)
             + " blocks (max " + limit + explain);
-        }
+        });
         reportLines.add(LINE_BREAK);
         // Donated blocks section
         if (results.donatedPoints.get() > 0) {
@@ -330,97 +263,140 @@ public class IslandLevelCalculator {
     }
 
     /**
-     * Get value of a material World blocks trump regular block values
+     * Fetches and scans all the island chunks. Chunks from all the worlds are
+     * requested together, up to the chunks-in-flight setting at a time, and each
+     * chunk is scanned as soon as it arrives.
      * 
-     * @param obj - Material, EntityType, or NamespacedId to check
-     * @return value
+     * @param pipeliner - the pipeliner running this calculation
+     * @return future that completes on the main thread with true when all the chunks
+     *         have been scanned, or false if the calculation timed out. It completes
+     *         exceptionally if a chunk could not be loaded or scanned.
      */
-    private int getValue(Object obj) {
-        Integer value = addon.getBlockConfig().getValue(island.getWorld(), obj);
-        if (value == null) {
-            // Not in config
-            results.ncCount.add(obj);
-            return 0;
-        }
-        return value;
+    private CompletableFuture<Boolean> scanChunks(Pipeliner pipeliner) {
+        scanDone = new CompletableFuture<>();
+        fetchChunks(pipeliner);
+        return scanDone;
     }
 
     /**
-     * Get a chunk async
+     * Requests chunks until the in-flight window is full. Called at the start and
+     * every time a chunk has been scanned.
      * 
-     * @param env      - the environment
-     * @param pairList - chunk coordinate
-     * @return a future chunk or future null if there is no chunk to load, e.g.,
-     *         there is no island nether
+     * @param pipeliner - the pipeliner running this calculation
      */
-    private CompletableFuture<List<Chunk>> getWorldChunk(Environment env, Queue<Pair<Integer, Integer>> pairList) {
-        if (worlds.containsKey(env)) {
-            CompletableFuture<List<Chunk>> r2 = new CompletableFuture<>();
-            List<Chunk> chunkList = new ArrayList<>();
-            World world = worlds.get(env);
-            // Get the chunk, and then coincidentally check the RoseStacker
-            loadChunks(r2, world, pairList, chunkList);
-            return r2;
-        }
-        return CompletableFuture.completedFuture(Collections.emptyList());
-    }
-
-    private void loadChunks(CompletableFuture<List<Chunk>> r2, World world, Queue<Pair<Integer, Integer>> pairList,
-            List<Chunk> chunkList) {
-        if (pairList.isEmpty()) {
-            r2.complete(chunkList);
+    private void fetchChunks(Pipeliner pipeliner) {
+        if (scanDone.isDone() || fetching) {
+            // Done, or the request loop below is running and will carry on
             return;
         }
-        Pair<Integer, Integer> p = pairList.poll();
-        // We need to generate now all the time because some game modes are not voids
-        Util.getChunkAtAsync(world, p.x, p.z, true).thenAccept(chunk -> {
-            if (chunk != null) {
-                chunkList.add(chunk);
-                roseStackerCheck(chunk);
+        // Timeout check
+        Long start = pipeliner.getInProcessQueue().get(this);
+        if (start != null
+                && System.currentTimeMillis() - start > addon.getSettings().getCalculationTimeout() * 60000L) {
+            scanDone.complete(false);
+            return;
+        }
+        fetching = true;
+        try {
+            while (chunksInFlight < addon.getSettings().getChunksInFlight() && !chunksToCheck.isEmpty()
+                    && !pipeliner.getTask().isCancelled() && !scanDone.isDone()) {
+                ChunkRef ref = chunksToCheck.poll();
+                if (addon.getSettings().isIncrementalScans()) {
+                    // Reuse the counts from the last scan if the chunk has not changed since
+                    ChunkCounts stored = pipeliner.getChunkCountStore().get(ref.world(), ref.x(), ref.z(), island);
+                    if (stored != null) {
+                        mergeChunkCounts(ref, stored);
+                        continue;
+                    }
+                }
+                chunksInFlight++;
+                // We need to generate now all the time because some game modes are not voids
+                Util.getChunkAtAsync(ref.world(), ref.x(), ref.z(), true)
+                .thenCompose(chunk -> chunk == null ? CompletableFuture.<Void>completedFuture(null)
+                        : scanChunk(pipeliner, ref, chunk))
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        // A missing chunk would make the level too low, so the calculation fails
+                        scanDone.completeExceptionally(e);
+                    }
+                    chunkDone(pipeliner);
+                });
             }
-            loadChunks(r2, world, pairList, chunkList); // Iteration
-        });
+        } finally {
+            fetching = false;
+        }
+        if (chunksInFlight == 0 && !scanDone.isDone()) {
+            // Nothing left to scan
+            scanDone.complete(true);
+        }
+    }
+
+    private void chunkDone(Pipeliner pipeliner) {
+        chunksInFlight--;
+        fetchChunks(pipeliner);
     }
 
-    private void roseStackerCheck(Chunk chunk) {
+    private void roseStackerCheck(ScanTally tally, Chunk chunk) {
         if (addon.isRoseStackersEnabled()) {
             RoseStackerAPI.getInstance().getStackedBlocks(Collections.singletonList(chunk)).forEach(e -> {
+                tally.stacked = true;
                 // Blocks below sea level can be scored differently
                 boolean belowSeaLevel = seaHeight > 0 && e.getLocation().getY() <= seaHeight;
                 // Check block once because the base block will be counted in the chunk snapshot
-                for (int _x = 0; _x < e.getStackSize() - 1; _x++) {
-                    checkBlock(e.getBlock().getType(), belowSeaLevel);
-                }
+                (belowSeaLevel ? tally.uwCount : tally.mdCount).add(e.getBlock().getType(),
+                        Math.max(0, e.getStackSize() - 1));
             });
         }
     }
 
     /**
-     * Checks if the given object (Material or EntityType) has reached its limit.
-     * If it hasn't, the object's value is returned and its count is incremented.
-     * If the object is not a Material or EntityType, or if it has exceeded its limit, 0 is returned.
+     * Scores the block counts gathered by the scan. Chunks are only counted while
+     * they are scanned, so they can be scanned on any thread; values and limits are
+     * applied once here after all the counts have been merged. Blocks above sea
+     * level use up any limit first.
+     */
+    private void scoreCounts() {
+        // World blocks trump regular block values
+        BlockValueTable table = addon.getBlockConfig().getValueTable(island.getWorld());
+        Map<Object, Integer> limitCount = new HashMap<>();
+        scoreCount(table, results.mdCount, limitCount, results.rawBlockCount);
+        scoreCount(table, results.uwCount, limitCount, results.underWaterBlockCount);
+    }
+
+    /**
+     * Scores one set of block counts. Blocks over their limit are added to ofCount
+     * and score nothing. Blocks that are not in the config are added to ncCount.
      *
-     * @param obj A Material or EntityType
-     * @return The object's value if within limit, otherwise 0.
+     * @param table      - block values and limits
+     * @param counts     - block counts to score
+     * @param limitCount - number of each limited block counted so far
+     * @param points     - total to add the points for these blocks to
      */
-    private int limitCountAndValue(Object obj) {
-        // Only process if obj is a Material or EntityType
-        if (!(obj instanceof Material) && !(obj instanceof EntityType) && !(obj instanceof String)) {
-            return 0;
-        }
-        // Get the limit of any particular material or entity type
-        Integer limit = addon.getBlockConfig().getLimit(obj);
-        if (limit == null) {
-            return getValue(obj);
-        }
-        int count = limitCount.getOrDefault(obj, 0);
-        if (count > limit) {
-            // Add block to ofCount
-            this.results.ofCount.add(obj);
-            return 0;
-        }
-        limitCount.put(obj, count + 1);
-        return getValue(obj);
+    private void scoreCount(BlockValueTable table, BlockCounter counts, Map<Object, Integer> limitCount,
+            AtomicLong points) {
+        counts.forEach((obj, count) -> {
+            int counted = count;
+            // Get the limit of any particular material or entity type
+            int limit = table.limit(obj);
+            if (limit != BlockValueTable.UNSET) {
+                // Blocks are counted until the number already counted goes past the limit
+                int used = limitCount.getOrDefault(obj, 0);
+                counted = (int) Math.max(0, Math.min(count, (long) limit + 1 - used));
+                limitCount.put(obj, used + counted);
+                if (counted < count) {
+                    results.ofCount.add(obj, count - counted);
+                }
+            }
+            if (counted > 0) {
+                int value = table.value(obj);
+                if (value == BlockValueTable.UNSET) {
+                    // Not in config
+                    results.ncCount.add(obj, counted);
+                } else {
+                    points.addAndGet((long) counted * value);
+                }
+            }
+        });
     }
 
     /**
@@ -490,44 +466,169 @@ public class IslandLevelCalculator {
     }
 
     /**
-     * Scan the chunk chests and count the blocks. Note that the chunks are a list
-     * of all the island chunks in a particular world, so the memory usage is high,
-     * but I think most servers can handle it.
+     * Takes a snapshot of the chunk and counts its blocks on a scan worker thread.
+     * The counts are merged on the main thread.
      * 
-     * @param chunks - a list of chunks to scan
-     * @return future that completes when the scan is done and supplies a boolean
-     *         that will be true if the scan was successful, false if not
+     * @param pipeliner - the pipeliner running this calculation
+     * @param ref       - the chunk coordinates
+     * @param chunk     - the chunk to scan
+     * @return future that completes on the main thread when the chunk has been
+     *         counted, or completes exceptionally if it could not be counted
      */
-    private CompletableFuture<Boolean> scanChunk(List<Chunk> chunks) {
-        // If the chunk hasn't been generated, return
-        if (chunks == null || chunks.isEmpty()) {
-            return CompletableFuture.completedFuture(false);
+    private CompletableFuture<Void> scanChunk(Pipeliner pipeliner, ChunkRef ref, Chunk chunk) {
+        ChunkCountStore store = pipeliner.getChunkCountStore();
+        // Use the saved counts if the chunk has not changed since it was saved
+        ChunkFingerprintCache fingerprints = addon.getSettings().isSkipUnchangedChunks()
+                ? pipeliner.getChunkFingerprints()
+                : null;
+        long fingerprint = chunk.getInhabitedTime();
+        if (fingerprints != null) {
+            ChunkCounts saved = fingerprints.get(island, ref, fingerprint, seaHeight);
+            if (saved != null) {
+                mergeChunkCounts(ref, saved);
+                if (addon.getSettings().isIncrementalScans()) {
+                    store.put(ref.world(), ref.x(), ref.z(), store.startScan(ref.world(), ref.x(), ref.z()), saved);
+                }
+                return CompletableFuture.completedFuture(null);
+            }
         }
-        // Count blocks in chunk
-        CompletableFuture<Boolean> result = new CompletableFuture<>();
-        /*
-         * At this point, we need to grab a snapshot of each chunk and then scan it
-         * async. At the end, we make the CompletableFuture true to show it is done. I'm
-         * not sure how much lag this will cause, but as all the chunks are loaded,
-         * maybe not that much.
-         */
-        List<ChunkPair> preLoad = chunks.stream().map(c -> new ChunkPair(c.getWorld(), c, c.getChunkSnapshot()))
-                .toList();
-        Bukkit.getScheduler().runTaskAsynchronously(BentoBox.getInstance(), () -> {
-            preLoad.forEach(this::scanAsync);
-            // Once they are all done, return to the main thread.
-            Bukkit.getScheduler().runTask(addon.getPlugin(), () -> result.complete(true));
-        });
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        ScanTally tally = new ScanTally(ref);
+        // Check the RoseStacker while the chunk is loaded
+        roseStackerCheck(tally, chunk);
+        // Mark the scan start in the same tick as the snapshot so that any later change is noticed
+        ChunkCountStore.Pending pending = addon.getSettings().isIncrementalScans()
+                ? store.startScan(ref.world(), ref.x(), ref.z())
+                : null;
+        ChunkPair cp = new ChunkPair(chunk.getWorld(), chunk, chunk.getChunkSnapshot());
+        CompletableFuture.runAsync(() -> scanAsync(tally, cp), pipeliner.getScanExecutor())
+        .whenComplete((v, e) -> Bukkit.getScheduler().runTask(addon.getPlugin(), () -> {
+            if (e != null) {
+                addon.getPlugin().logStacktrace(e);
+                result.completeExceptionally(e);
+                return;
+            }
+            mergeTally(tally);
+            if (pending != null || fingerprints != null) {
+                ChunkCounts counts = toChunkCounts(tally);
+                if (pending != null) {
+                    store.put(ref.world(), ref.x(), ref.z(), pending, counts);
+                }
+                if (fingerprints != null) {
+                    fingerprints.put(island, ref, fingerprint, seaHeight, counts);
+                }
+            }
+            result.complete(null);
+        }));
         return result;
     }
 
+    /**
+     * Adds the counts gathered by a scan worker to this calculation. Must be called
+     * on the main thread.
+     *
+     * @param tally - the worker's tally
+     */
+    private void mergeTally(ScanTally tally) {
+        results.mdCount.addAll(tally.mdCount);
+        results.uwCount.addAll(tally.uwCount);
+        stackedBlocks.addAll(tally.stackedBlocks);
+        if (tally.chests) {
+            chestBlocks.add(tally.ref);
+        }
+        if (tally.furniture) {
+            furnitureChunks.add(tally.ref);
+        }
+        spawners.putAll(tally.spawners);
+    }
+
+    /**
+     * Adds the stored counts of an unchanged chunk to this calculation
+     *
+     * @param ref    - the chunk coordinates
+     * @param counts - the counts from the last scan of the chunk
+     */
+    private void mergeChunkCounts(ChunkRef ref, ChunkCounts counts) {
+        for (int i = 0; i < counts.mdKeys().length; i++) {
+            results.mdCount.add(counts.mdKeys()[i], counts.mdCounts()[i]);
+        }
+        for (int i = 0; i < counts.uwKeys().length; i++) {
+            results.uwCount.add(counts.uwKeys()[i], counts.uwCounts()[i]);
+        }
+        stackedBlocks.addAll(counts.stackedBlocks());
+        if (counts.chests()) {
+            chestBlocks.add(ref);
+        }
+        if (counts.furniture()) {
+            furnitureChunks.add(ref);
+        }
+        spawners.putAll(counts.spawners());
+    }
+
+    /**
+     * Makes a compact copy of the counts of a chunk to keep for the next calculation
+     *
+     * @param tally - the tally of one chunk
+     * @return chunk counts
+     */
+    private ChunkCounts toChunkCounts(ScanTally tally) {
+        Object[] mdKeys = new Object[tally.mdCount.distinct()];
+        int[] mdCounts = new int[mdKeys.length];
+        tally.mdCount.toArrays(mdKeys, mdCounts);
+        Object[] uwKeys = new Object[tally.uwCount.distinct()];
+        int[] uwCounts = new int[uwKeys.length];
+        tally.uwCount.toArrays(uwKeys, uwCounts);
+        return new ChunkCounts(island.getUniqueId(), ChunkCountStore.bounds(island), mdKeys, mdCounts, uwKeys,
+                uwCounts, Map.copyOf(tally.spawners), List.copyOf(tally.stackedBlocks), tally.chests,
+                tally.furniture, tally.stacked);
+    }
+
     record ChunkPair(World world, Chunk chunk, ChunkSnapshot chunkSnapshot) {
     }
 
-    private void scanAsync(ChunkPair cp) {
-// Track chunks for furniture entity scanning (Oraxen and Nexo are entity-based)
+    record ChunkRef(World world, int x, int z) {
+    }
+
+    /**
+     * Block counts and deferred checks gathered for one chunk. A tally is only
+     * used by the thread that fills it, so nothing in it needs to be thread-safe.
+     */
+    private static class ScanTally {
+        private final ChunkRef ref;
+        private final BlockCounter mdCount = new BlockCounter();
+        private final BlockCounter uwCount = new BlockCounter();
+        private final List<Location> stackedBlocks = new ArrayList<>();
+        private final Map<Location, Boolean> spawners = new HashMap<>();
+        private boolean chests;
+        private boolean furniture;
+        // A stacker plugin added stack sizes to the counts
+        private boolean stacked;
+
+        private ScanTally(ChunkRef ref) {
+            this.ref = ref;
+        }
+
+        private void count(Material material, boolean belowSeaLevel) {
+            if (belowSeaLevel) {
+                uwCount.add(material);
+            } else {
+                mdCount.add(material);
+            }
+        }
+
+        private void count(Object obj, boolean belowSeaLevel) {
+            if (belowSeaLevel) {
+                uwCount.add(obj);
+            } else {
+                mdCount.add(obj);
+            }
+        }
+    }
+
+    private void scanAsync(ScanTally tally, ChunkPair cp) {
+        // Track chunks for furniture entity scanning (Oraxen and Nexo are entity-based)
         if (BentoBox.getInstance().getHooks().getHook("Oraxen").isPresent() || addon.isNexo()) {
-            furnitureChunks.add(cp.chunk);
+            tally.furniture = true;
         }
         // Get the chunk coordinates and island boundaries once per chunk scan
         int chunkX = cp.chunk.getX() << 4;
@@ -536,17 +637,32 @@ public class IslandLevelCalculator {
         int maxX = island.getMaxProtectedX();
         int minZ = island.getMinProtectedZ();
         int maxZ = island.getMaxProtectedZ();
-
-        for (int x = 0; x < 16; x++) {
-            int globalX = chunkX + x;
-            // Check if the block is within the island's X-boundary
-            if (globalX >= minX && globalX < maxX) {
-                for (int z = 0; z < 16; z++) {
-                    int globalZ = chunkZ + z;
-                    // Check if the block is within the island's Z-boundary
-                    if (globalZ >= minZ && globalZ < maxZ) {
-                        for (int y = cp.world.getMinHeight(); y < cp.world.getMaxHeight(); y++) {
-                            processBlock(cp, x, y, z, globalX, globalZ);
+        // Number of block columns in this chunk that are inside the island
+        int columns = Math.max(0, Math.min(maxX, chunkX + 16) - Math.max(minX, chunkX))
+                * Math.max(0, Math.min(maxZ, chunkZ + 16) - Math.max(minZ, chunkZ));
+        if (columns == 0) {
+            return;
+        }
+        int minHeight = cp.world.getMinHeight();
+        int maxHeight = cp.world.getMaxHeight();
+        // Scan a 16 block high section at a time so that sections that are all air can be skipped
+        for (int bottom = minHeight; bottom < maxHeight; bottom += 16) {
+            int top = Math.min(bottom + 16, maxHeight);
+            if (skipEmptySections && cp.chunkSnapshot.isSectionEmpty((bottom - minHeight) >> 4)) {
+                countEmptySection(tally, columns, bottom, top);
+                continue;
+            }
+            for (int x = 0; x < 16; x++) {
+                int globalX = chunkX + x;
+                // Check if the block is within the island's X-boundary
+                if (globalX >= minX && globalX < maxX) {
+                    for (int z = 0; z < 16; z++) {
+                        int globalZ = chunkZ + z;
+                        // Check if the block is within the island's Z-boundary
+                        if (globalZ >= minZ && globalZ < maxZ) {
+                            for (int y = bottom; y < top; y++) {
+                                processBlock(tally, cp, x, y, z, globalX, globalZ);
+                            }
                         }
                     }
                 }
@@ -554,10 +670,39 @@ public class IslandLevelCalculator {
         }
     }
 
+    /**
+     * An empty section can hold cave air and void air as well as air. They can only
+     * be counted as air if that does not change the level.
+     *
+     * @param table - block values and limits
+     * @param air   - kind of air
+     * @return true if the air scores the same as plain air and neither has a limit
+     */
+    private static boolean scoresAsAir(BlockValueTable table, Material air) {
+        return table.value(air) == table.value(Material.AIR) && table.limit(air) == BlockValueTable.UNSET
+                && table.limit(Material.AIR) == BlockValueTable.UNSET;
+    }
+
+    /**
+     * Counts the air in a chunk section that has no blocks without looking at each
+     * block. Cave air and void air in the section are counted as air.
+     *
+     * @param tally   The tally of the worker scanning this chunk.
+     * @param columns The number of block columns in the chunk that are inside the island.
+     * @param bottom  The lowest Y coordinate of the section.
+     * @param top     The Y coordinate above the top of the section.
+     */
+    private void countEmptySection(ScanTally tally, int columns, int bottom, int top) {
+        int belowSeaLevel = seaHeight > 0 ? Math.max(0, Math.min(top, seaHeight + 1) - bottom) : 0;
+        tally.uwCount.add(Material.AIR, columns * belowSeaLevel);
+        tally.mdCount.add(Material.AIR, columns * (top - bottom - belowSeaLevel));
+    }
+
     /**
      * Processes a single block from a chunk snapshot to calculate its contribution to the island's level.
      * This method is designed to be efficient by minimizing object creation and using direct checks.
      *
+     * @param tally   The tally of the worker scanning this chunk.
      * @param cp      The ChunkPair containing the world, chunk, and snapshot.
      * @param x       The block's X coordinate within the chunk (0-15).
      * @param y       The block's Y coordinate.
@@ -565,9 +710,9 @@ public class IslandLevelCalculator {
      * @param globalX The block's global X coordinate in the world.
      * @param globalZ The block's global Z coordinate in the world.
      */
-    private void processBlock(ChunkPair cp, int x, int y, int z, int globalX, int globalZ) {
-        BlockData blockData = cp.chunkSnapshot.getBlockData(x, y, z);
-        Material m = blockData.getMaterial();
+    private void processBlock(ScanTally tally, ChunkPair cp, int x, int y, int z, int globalX, int globalZ) {
+        // Only the material is needed, so avoid creating BlockData
+        Material m = cp.chunkSnapshot.getBlockType(x, y, z);
 
         // Determine if the block is below sea level for potential score multipliers.
         boolean belowSeaLevel = seaHeight > 0 && y <= seaHeight;
@@ -602,7 +747,7 @@ public class IslandLevelCalculator {
 
             if (customBlockId != null) {
                 // If a custom block is found, count it and stop further processing for this block.
-                checkBlock(customBlockId, belowSeaLevel);
+                tally.count(customBlockId, belowSeaLevel);
                 return;
             }
         }
@@ -612,7 +757,7 @@ public class IslandLevelCalculator {
         // which requires main thread access. We defer this by adding them to a map to process later.
         if (m == Material.SPAWNER) {
             if (loc == null) loc = new Location(cp.world, globalX, y, globalZ);
-            spawners.put(loc, belowSeaLevel);
+            tally.spawners.put(loc, belowSeaLevel);
             // Spawners are also counted as regular blocks, so we continue processing.
         }
 
@@ -629,7 +774,7 @@ public class IslandLevelCalculator {
             BLACK_SHULKER_BOX,
             BREWING_STAND, FURNACE, BLAST_FURNACE, SMOKER,
             BEACON, ENCHANTING_TABLE, LECTERN, JUKEBOX:
-                chestBlocks.add(cp.chunk);
+                tally.chests = true;
             break;
             default:
                 // Not a container of interest.
@@ -642,83 +787,39 @@ public class IslandLevelCalculator {
         // stacked blocks and add their locations for later, more detailed checks.
         if (addon.isStackersEnabled() && (m == Material.CAULDRON || m == Material.SPAWNER)) {
             if (loc == null) loc = new Location(cp.world, globalX, y, globalZ);
-            stackedBlocks.add(loc);
+            tally.stackedBlocks.add(loc);
         }
         if (addon.isUltimateStackerEnabled()) {
             if (loc == null) loc = new Location(cp.world, globalX, y, globalZ);
-            UltimateStackerCalc.addStackers(m, loc, results, belowSeaLevel, limitCountAndValue(m));
-        }
-
-        // === Slab Handling ===
-        // Double slabs are counted as a single, full block. Single slabs are counted
-        // as regular blocks. This logic prevents double-counting.
-        if (blockData instanceof Slab slab && slab.getType() == Slab.Type.DOUBLE) {
-            // This is a full block, so count it and we are done with it.
-            checkBlock(m, belowSeaLevel);
-            return;
+            if (UltimateStackerCalc.addStackers(m, loc, belowSeaLevel ? tally.uwCount : tally.mdCount)) {
+                tally.stacked = true;
+            }
         }
 
         // === Default Block Value Calculation ===
-        // If the block is not a special case handled above (like a double slab),
-        // count it as a regular block. This includes single slabs.
-        checkBlock(m, belowSeaLevel);
-    }
-
-    /**
-     * Scan the next chunk on the island
-     * 
-     * @return completable boolean future that will be true if more chunks are left
-     *         to be scanned, and false if not
-     */
-    public CompletableFuture<Boolean> scanNextChunk() {
-        if (chunksToCheck.isEmpty()) {
-            addon.logError("Unexpected: no chunks to scan!");
-            // This should not be needed, but just in case
-            return CompletableFuture.completedFuture(false);
-        }
-        // Retrieve and remove from the queue
-        Queue<Pair<Integer, Integer>> pairList = new ConcurrentLinkedQueue<>();
-        int i = 0;
-        while (!chunksToCheck.isEmpty() && i++ < CHUNKS_TO_SCAN) {
-            pairList.add(chunksToCheck.poll());
-        }
-        Queue<Pair<Integer, Integer>> endPairList = new ConcurrentLinkedQueue<>(pairList);
-        Queue<Pair<Integer, Integer>> netherPairList = new ConcurrentLinkedQueue<>(pairList);
-        // Set up the result
-        CompletableFuture<Boolean> result = new CompletableFuture<>();
-        // Get chunks and scan
-        // Get chunks and scan
-        getWorldChunk(Environment.THE_END, endPairList).thenAccept(
-                endChunks -> scanChunk(endChunks).thenAccept(b -> getWorldChunk(Environment.NETHER, netherPairList)
-                        .thenAccept(netherChunks -> scanChunk(netherChunks)
-                                .thenAccept(b2 -> getWorldChunk(Environment.NORMAL, pairList)
-                                        .thenAccept(normalChunks -> scanChunk(normalChunks).thenAccept(b3 ->
-                                        // Complete the result now that all chunks have been scanned
-                                        result.complete(!chunksToCheck.isEmpty())))))));
-
-        return result;
+        // Count it as a regular block. A double slab is one block, so it is counted
+        // once, the same as a single slab, and its block state is not needed.
+        tally.count(m, belowSeaLevel);
     }
 
-    private Collection<String> sortedReport(int total, Multiset<Object> uwCount) {
+    private Collection<String> sortedReport(int total, BlockCounter uwCount) {
         Collection<String> result = new ArrayList<>();
-        Iterable<Multiset.Entry<Object>> entriesSortedByCount = Multisets.copyHighestCountFirst(uwCount)
-                .entrySet();
-        for (Entry<Object> en : entriesSortedByCount) {
+        for (Map.Entry<Object, Integer> en : uwCount.entriesByCount()) {
 
             int value = 0;
             String name = "";
-            if (en.getElement() instanceof Material md) {
+            if (en.getKey() instanceof Material md) {
                 value = Objects.requireNonNullElse(addon.getBlockConfig().getValue(island.getWorld(), md), 0);
                 name = Util.prettifyText(md.name());
-            } else if (en.getElement() instanceof EntityType et) {
+            } else if (en.getKey() instanceof EntityType et) {
                 name = Util.prettifyText(et.name() + BlockConfig.SPAWNER);
                 value = Objects.requireNonNullElse(addon.getBlockConfig().getValue(island.getWorld(), et), 0);
-            } else if (en.getElement() instanceof String str) {
+            } else if (en.getKey() instanceof String str) {
                 name = Util.prettifyText(str);
                 value = Objects.requireNonNullElse(addon.getBlockConfig().getValue(island.getWorld(), str), 0);
             }
-            int limit = addon.getBlockConfig().getLimit(en.getElement()) == null ? en.getCount() : Math.min(en.getCount(), addon.getBlockConfig().getLimit(en.getElement()));
-            result.add(name + ": " + String.format("%,d", en.getCount()) + " blocks x " + value + " = "
+            int limit = addon.getBlockConfig().getLimit(en.getKey()) == null ? en.getValue() : Math.min(en.getValue(), addon.getBlockConfig().getLimit(en.getKey()));
+            result.add(name + ": " + String.format("%,d", en.getValue()) + " blocks x " + value + " = "
                     + (value * limit));
             total += (value * limit);
 
@@ -732,6 +833,8 @@ public class IslandLevelCalculator {
      * Finalizes the calculations and makes the report
      */
     public void tidyUp() {
+        // Score the counted blocks
+        scoreCounts();
         // Finalize calculations
         results.rawBlockCount
         .addAndGet((long) (results.underWaterBlockCount.get() * addon.getSettings().getUnderWaterMultiplier()));
@@ -747,55 +850,18 @@ public class IslandLevelCalculator {
         results.donatedPoints.set(donatedPoints);
 
         // Set the death penalty
-        if (this.addon.getSettings().isSumTeamDeaths()) {
-            for (UUID uuid : this.island.getMemberSet()) {
-                this.results.deathHandicap.addAndGet(this.addon.getPlayers().getDeaths(island.getWorld(), uuid));
-            }
-        } else {
-            // At this point, it may be that the island has become unowned.
-            this.results.deathHandicap.set(this.island.getOwner() == null ? 0
-                    : this.addon.getPlayers().getDeaths(island.getWorld(), this.island.getOwner()));
-        }
+        this.results.deathHandicap.set(LevelFormula.getDeathHandicap(addon, island));
 
         long blockAndDeathPoints = this.results.rawBlockCount.get();
         this.results.totalPoints.set(blockAndDeathPoints);
 
-        if (this.addon.getSettings().getDeathPenalty() > 0) {
-            // Proper death penalty calculation.
-            blockAndDeathPoints -= this.results.deathHandicap.get() * this.addon.getSettings().getDeathPenalty();
-        }
-        this.results.level.set(calculateLevel(blockAndDeathPoints));
+        LevelFormula formula = new LevelFormula(addon, island, results.initialCount.get());
+        blockAndDeathPoints = formula.applyDeathPenalty(blockAndDeathPoints, this.results.deathHandicap.get());
+        this.results.level.set(formula.calculateLevel(blockAndDeathPoints));
 
-        // Binary search for points to next level (first point count that exceeds currentLevel)
         long currentLevel = this.results.level.get();
-        long lo = blockAndDeathPoints + 1;
-        long hi = blockAndDeathPoints + MAX_AMOUNT;
-        while (lo < hi) {
-            long mid = lo + (hi - lo) / 2;
-            if (calculateLevel(mid) > currentLevel) {
-                hi = mid;
-            } else {
-                lo = mid + 1;
-            }
-        }
-        this.results.pointsToNextLevel.set(lo - blockAndDeathPoints);
-
-        // Binary search for points accumulated within the current level.
-        // Floor at initialCount when zeroing new islands to avoid negative/NaN in non-linear formulas.
-        // In donations-only mode, the initial count is ignored (see calculateLevel).
-        long minBlocks = addon.getSettings().isZeroNewIslandLevels() && !addon.getSettings().isDonationsOnly()
-                ? results.initialCount.get() : 0;
-        lo = Math.max(minBlocks, blockAndDeathPoints - MAX_AMOUNT);
-        hi = blockAndDeathPoints;
-        while (lo < hi) {
-            long mid = lo + (hi - lo) / 2;
-            if (calculateLevel(mid) >= currentLevel) {
-                hi = mid;
-            } else {
-                lo = mid + 1;
-            }
-        }
-        this.results.pointsFromCurrentLevel.set(blockAndDeathPoints - lo);
+        this.results.pointsToNextLevel.set(formula.getPointsToNextLevel(blockAndDeathPoints, currentLevel));
+        this.results.pointsFromCurrentLevel.set(formula.getPointsFromCurrentLevel(blockAndDeathPoints, currentLevel));
 
         // Report
         results.report = getReport();
@@ -820,21 +886,35 @@ public class IslandLevelCalculator {
         // disable donations-only without losing the handicap that would
         // otherwise need to be subtracted from the scanned block total.
         if (addon.getSettings().isDonationsOnly() && !zeroIsland) {
-            pipeliner.getInProcessQueue().remove(this);
+            pipeliner.finished(this);
             this.tidyUp();
             this.getR().complete(getResults());
             return;
         }
-        // Scan the next chunk
-        scanNextChunk().thenAccept(result -> {
+        BlockValueTable table = addon.getBlockConfig().getValueTable(island.getWorld());
+        skipEmptySections = scoresAsAir(table, Material.CAVE_AIR) && scoresAsAir(table, Material.VOID_AIR);
+        // Load the saved chunk counts before the chunks are scanned so the database is not read during the scan
+        boolean skipUnchanged = addon.getSettings().isSkipUnchangedChunks();
+        CompletableFuture<Void> ready = skipUnchanged ? pipeliner.getChunkFingerprints().load(island)
+                : CompletableFuture.completedFuture(null);
+        // Fetch and scan all the chunks
+        ready.thenCompose(v -> scanChunks(pipeliner)).whenComplete((completed, e) -> {
             if (!Bukkit.isPrimaryThread()) {
                 addon.getPlugin().logError("scanChunk not on Primary Thread!");
             }
-            // Timeout check
-            if (System.currentTimeMillis()
-                    - pipeliner.getInProcessQueue().get(this) > addon.getSettings().getCalculationTimeout() * 60000) {
-                // Done
-                pipeliner.getInProcessQueue().remove(this);
+            pipeliner.finished(this);
+            if (skipUnchanged) {
+                // Chunks that were counted are kept even if the calculation did not finish
+                pipeliner.getChunkFingerprints().save(island);
+            }
+            if (e != null) {
+                // Some blocks were not counted, so there is no level to report
+                addon.logError("Level calculation failed for island: " + getIsland() + " " + e.getMessage());
+                getR().complete(null);
+                return;
+            }
+            if (Boolean.FALSE.equals(completed)) {
+                // Timed out
                 getR().complete(new Results(Result.TIMEOUT));
                 addon.logError("Level calculation timed out after " + addon.getSettings().getCalculationTimeout()
                         + "m for island: " + getIsland());
@@ -843,23 +923,15 @@ public class IslandLevelCalculator {
                 }
                 return;
             }
-            if (Boolean.TRUE.equals(result) && !pipeliner.getTask().isCancelled()) {
-                // scanNextChunk returns true if there are more chunks to scan
-                scanIsland(pipeliner);
-            } else {
-                // Done
-                pipeliner.getInProcessQueue().remove(this);
-                BentoBox.getInstance().log("Completed Level scan.");
-                // Chunk finished
-                // This was the last chunk. Handle stacked blocks, spawners, chests and exit
-                handleStackedBlocks().thenCompose(v -> handleSpawners()).thenCompose(v -> handleChests())
-                .thenCompose(v -> handleOraxenFurniture())
-                .thenCompose(v -> handleNexoFurniture())
-                .thenRun(() -> {
-                    this.tidyUp();
-                    this.getR().complete(getResults());
-                });
-            }
+            BentoBox.getInstance().log("Completed Level scan.");
+            // All the chunks are done. Handle stacked blocks, spawners, chests and exit
+            handleStackedBlocks().thenCompose(v -> handleSpawners()).thenCompose(v -> handleChests())
+            .thenCompose(v -> handleOraxenFurniture())
+            .thenCompose(v -> handleNexoFurniture())
+            .thenRun(() -> {
+                this.tidyUp();
+                this.getR().complete(getResults());
+            });
         });
     }
 
@@ -870,7 +942,7 @@ public class IslandLevelCalculator {
                 if (en.getKey().getBlock().getType() == Material.SPAWNER) {
                     EntityType et = ((CreatureSpawner) en.getKey().getBlock().getState()).getSpawnedType();
                     if (et != null) {
-                        checkSpawner(et, en.getValue());
+                        checkBlock(et, en.getValue());
                     } else {
                         // This spawner has no spawning capability. Just list it as a spawner block
                         checkBlock(Material.SPAWNER, en.getValue());
@@ -886,8 +958,8 @@ public class IslandLevelCalculator {
 
     private CompletableFuture<Void> handleChests() {
         List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (Chunk v : chestBlocks) {
-            CompletableFuture<Void> future = Util.getChunkAtAsync(v.getWorld(), v.getX(), v.getZ()).thenAccept(c -> {
+        for (ChunkRef v : chestBlocks) {
+            CompletableFuture<Void> future = Util.getChunkAtAsync(v.world(), v.x(), v.z()).thenAccept(c -> {
                 scanChests(c);
             });
             futures.add(future);
@@ -913,8 +985,8 @@ public class IslandLevelCalculator {
         int minZ = island.getMinProtectedZ();
         int maxZ = island.getMaxProtectedZ();
         List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (Chunk chunk : furnitureChunks) {
-            CompletableFuture<Void> future = Util.getChunkAtAsync(chunk.getWorld(), chunk.getX(), chunk.getZ())
+        for (ChunkRef chunk : furnitureChunks) {
+            CompletableFuture<Void> future = Util.getChunkAtAsync(chunk.world(), chunk.x(), chunk.z())
                     .thenAccept(c -> {
                         for (Entity entity : c.getEntities()) {
                             // Only count the root/base entity of each furniture piece
@@ -957,8 +1029,8 @@ public class IslandLevelCalculator {
         int minZ = island.getMinProtectedZ();
         int maxZ = island.getMaxProtectedZ();
         List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (Chunk chunk : furnitureChunks) {
-            CompletableFuture<Void> future = Util.getChunkAtAsync(chunk.getWorld(), chunk.getX(), chunk.getZ())
+        for (ChunkRef chunk : furnitureChunks) {
+            CompletableFuture<Void> future = Util.getChunkAtAsync(chunk.world(), chunk.x(), chunk.z())
                     .thenAccept(c -> {
                         for (Entity entity : c.getEntities()) {
                             Location loc = entity.getLocation();
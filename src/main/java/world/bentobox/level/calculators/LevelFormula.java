@@ -0,0 +1,187 @@
+package world.bentobox.level.calculators;
+
+import java.text.ParseException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.level.Level;
+import world.bentobox.level.calculators.EquationEvaluator.Expression;
+
+/**
+ * Turns island points into a level using the level formula in the config. Used
+ * by a full level calculation and by live level tracking, so both give the same
+ * level for the same points.
+ */
+public class LevelFormula {
+
+    /**
+     * Variables that can be used in the level formula
+     */
+    public static final String[] VARIABLES = { "blocks", "level_cost", "island_members" };
+    static final int BLOCKS = 0;
+    static final int LEVEL_COST = 1;
+    static final int ISLAND_MEMBERS = 2;
+    /**
+     * Compiled formula. The formula only changes when the config is reloaded, and
+     * the old one is dropped when it does.
+     */
+    private static final Map<String, Expression> COMPILED = new ConcurrentHashMap<>();
+
+    private final Level addon;
+    private final Island island;
+    private final long initialCount;
+    private final double[] variables = new double[VARIABLES.length];
+
+    /**
+     * @param addon        - addon
+     * @param island       - island
+     * @param initialCount - initial count of the island
+     */
+    public LevelFormula(Level addon, Island island, long initialCount) {
+        this.addon = addon;
+        this.island = island;
+        this.initialCount = initialCount;
+        // Use Math.max(1, ...) to prevent division by zero if island_members is used in the formula
+        variables[ISLAND_MEMBERS] = Math.max(1, island.getMemberSet().size());
+    }
+
+    /**
+     * Compile a level formula, or get it if it has already been compiled
+     *
+     * @param formula - level formula from the config
+     * @return compiled formula
+     * @throws ParseException if the formula cannot be parsed
+     */
+    public static Expression compile(String formula) throws ParseException {
+        Expression expression = COMPILED.get(formula);
+        if (expression == null) {
+            expression = EquationEvaluator.compile(formula, VARIABLES);
+            // The formula has changed, so the old formula and its tables are not needed
+            COMPILED.clear();
+            LevelThresholds.clear();
+            COMPILED.put(formula, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Get the deaths that count against an island
+     *
+     * @param addon  - addon
+     * @param island - island
+     * @return number of deaths
+     */
+    public static int getDeathHandicap(Level addon, Island island) {
+        if (addon.getSettings().isSumTeamDeaths()) {
+            int deaths = 0;
+            for (UUID uuid : island.getMemberSet()) {
+                deaths += addon.getPlayers().getDeaths(island.getWorld(), uuid);
+            }
+            return deaths;
+        }
+        // At this point, it may be that the island has become unowned.
+        return island.getOwner() == null ? 0 : addon.getPlayers().getDeaths(island.getWorld(), island.getOwner());
+    }
+
+    /**
+     * Get the points left after the death penalty
+     *
+     * @param totalPoints   - total points before the death penalty
+     * @param deathHandicap - deaths that count against the island
+     * @return points after the death penalty
+     */
+    public long applyDeathPenalty(long totalPoints, int deathHandicap) {
+        if (addon.getSettings().getDeathPenalty() > 0) {
+            return totalPoints - (long) deathHandicap * addon.getSettings().getDeathPenalty();
+        }
+        return totalPoints;
+    }
+
+    /**
+     * Calculate the level based on the raw points
+     *
+     * @param rawPoints - raw points counted on island
+     * @return level of island
+     */
+    public long calculateLevel(final long rawPoints) {
+        // Reduce count by initial count, if zeroing is done. In donations-only
+        // mode the initial count is ignored — it was recorded from a one-off
+        // scan of the starter island and would push the level wildly negative
+        // when subtracted from donation-only points (e.g. when an admin enables
+        // this mode mid-game on islands that already have an initial count).
+        variables[BLOCKS] = rawPoints - getMinPoints();
+        variables[LEVEL_COST] = addon.getSettings().getLevelCost();
+        try {
+            return (long) compile(addon.getSettings().getLevelCalc()).evaluate(variables);
+        } catch (ParseException e) {
+            // Hmm, error.
+            addon.getPlugin().logStacktrace(e);
+            return 0L;
+        }
+    }
+
+    /**
+     * @return the points that are taken away before the formula is applied
+     */
+    private long getMinPoints() {
+        return addon.getSettings().isZeroNewIslandLevels() && !addon.getSettings().isDonationsOnly() ? initialCount
+                : 0;
+    }
+
+    /**
+     * Get the fewest points needed for a level
+     *
+     * @param level - level
+     * @return points after the death penalty, or
+     *         {@link LevelThresholds#UNREACHABLE} if the level cannot be reached
+     */
+    public long getPointsForLevel(long level) {
+        LevelThresholds thresholds = getThresholds();
+        long points = thresholds == null ? LevelThresholds.UNREACHABLE : thresholds.getPoints(level);
+        return points == LevelThresholds.UNREACHABLE ? points : points + getMinPoints();
+    }
+
+    private LevelThresholds getThresholds() {
+        try {
+            return LevelThresholds.get(compile(addon.getSettings().getLevelCalc()),
+                    addon.getSettings().getLevelCost(), (int) variables[ISLAND_MEMBERS]);
+        } catch (ParseException e) {
+            addon.getPlugin().logStacktrace(e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the number of points needed to reach the next level
+     *
+     * @param points - points after the death penalty
+     * @param level  - level for these points
+     * @return points to the next level
+     */
+    public long getPointsToNextLevel(long points, long level) {
+        long next = getPointsForLevel(level + 1);
+        if (next == LevelThresholds.UNREACHABLE) {
+            return IslandLevelCalculator.MAX_AMOUNT;
+        }
+        return Math.min(Math.max(next, points + 1) - points, IslandLevelCalculator.MAX_AMOUNT);
+    }
+
+    /**
+     * Get the number of points already gained within the current level
+     *
+     * @param points - points after the death penalty
+     * @param level  - level for these points
+     * @return points since the start of the level
+     */
+    public long getPointsFromCurrentLevel(long points, long level) {
+        // Floor at initialCount when zeroing new islands to avoid negative/NaN in non-linear formulas.
+        // In donations-only mode, the initial count is ignored (see calculateLevel).
+        long lo = Math.max(getMinPoints(), points - IslandLevelCalculator.MAX_AMOUNT);
+        if (lo < points) {
+            lo = Math.min(Math.max(getPointsForLevel(level), lo), points);
+        }
+        return points - lo;
+    }
+}
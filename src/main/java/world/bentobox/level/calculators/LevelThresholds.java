@@ -0,0 +1,168 @@
+package world.bentobox.level.calculators;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import world.bentobox.level.calculators.EquationEvaluator.Expression;
+
+/**
+ * Table of the fewest points needed for each level with a level formula, level
+ * cost and member count. A level is searched for and added to the table the
+ * first time it is asked for, so points to the next level and points for a
+ * level are looked up instead of searching the formula every time. The tables
+ * are dropped when the formula changes.
+ * <p>
+ * Like the searches it replaces, this assumes that more points never give a
+ * lower level. Points are the value of {@code blocks} in the formula, so the
+ * initial count has already been taken away.
+ */
+public class LevelThresholds {
+
+    /**
+     * Returned if a level cannot be reached
+     */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+    /**
+     * Higher levels are searched for each time instead of being kept
+     */
+    static final int MAX_LEVELS = 1 << 18;
+    /**
+     * Points beyond this are not searched
+     */
+    private static final long MAX_POINTS = 1L << 52;
+
+    private record Key(Expression formula, long levelCost, int members) {
+    }
+
+    private static final Map<Key, LevelThresholds> TABLES = new ConcurrentHashMap<>();
+
+    /**
+     * Marks a level that has not been searched for yet
+     */
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final Expression formula;
+    private final double[] variables = new double[LevelFormula.VARIABLES.length];
+    /**
+     * Fewest points for level 0, 1, 2, ... or {@link #UNKNOWN}
+     */
+    private long[] thresholds = newTable(16);
+
+    private LevelThresholds(Expression formula, long levelCost, int members) {
+        this.formula = formula;
+        variables[LevelFormula.LEVEL_COST] = levelCost;
+        variables[LevelFormula.ISLAND_MEMBERS] = members;
+    }
+
+    /**
+     * Get the table for a formula
+     *
+     * @param formula   - compiled level formula
+     * @param levelCost - level cost
+     * @param members   - island member count used in the formula
+     * @return table
+     */
+    public static LevelThresholds get(Expression formula, long levelCost, int members) {
+        return TABLES.computeIfAbsent(new Key(formula, levelCost, members),
+                k -> new LevelThresholds(k.formula(), k.levelCost(), k.members()));
+    }
+
+    /**
+     * Drop all the tables, e.g., because the formula has changed
+     */
+    static void clear() {
+        TABLES.clear();
+    }
+
+    private static long[] newTable(int length) {
+        long[] table = new long[length];
+        Arrays.fill(table, UNKNOWN);
+        return table;
+    }
+
+    /**
+     * Get the level for a number of points
+     *
+     * @param points - points
+     * @return level
+     */
+    public synchronized long getLevel(long points) {
+        variables[LevelFormula.BLOCKS] = points;
+        return (long) formula.evaluate(variables);
+    }
+
+    /**
+     * Get the fewest points needed for a level
+     *
+     * @param level - level
+     * @return points, or {@link #UNREACHABLE} if no number of points gives this
+     *         level or higher
+     */
+    public synchronized long getPoints(long level) {
+        if (level < 0 || level >= MAX_LEVELS) {
+            return search(level, 0);
+        }
+        int index = (int) level;
+        if (index >= thresholds.length) {
+            long[] larger = newTable(Math.min(MAX_LEVELS, Math.max(thresholds.length * 2, index + 1)));
+            System.arraycopy(thresholds, 0, larger, 0, thresholds.length);
+            thresholds = larger;
+        }
+        if (thresholds[index] == UNKNOWN) {
+            // Only this level is searched for, not every level below it
+            thresholds[index] = search(level, 0);
+        }
+        return thresholds[index];
+    }
+
+    /**
+     * Find the fewest points for a level by stepping out from a starting point in
+     * doubling steps and then halving the gap
+     *
+     * @param level - level
+     * @param from  - points to start from
+     * @return points, or {@link #UNREACHABLE}
+     */
+    private long search(long level, long from) {
+        long lo;
+        long hi;
+        long step = 1;
+        if (getLevel(from) >= level) {
+            // Step down until the level is not reached
+            hi = from;
+            lo = Math.max(from - step, -MAX_POINTS);
+            while (getLevel(lo) >= level) {
+                hi = lo;
+                if (lo <= -MAX_POINTS) {
+                    // Every number of points reaches this level
+                    return hi;
+                }
+                step <<= 1;
+                lo = Math.max(from - step, -MAX_POINTS);
+            }
+        } else {
+            // Step up until the level is reached
+            lo = from;
+            hi = Math.min(from + step, MAX_POINTS);
+            while (getLevel(hi) < level) {
+                lo = hi;
+                if (hi >= MAX_POINTS) {
+                    return UNREACHABLE;
+                }
+                step <<= 1;
+                hi = Math.min(from + step, MAX_POINTS);
+            }
+        }
+        // lo does not reach the level and hi does
+        while (hi - lo > 1) {
+            long mid = lo + (hi - lo) / 2;
+            if (getLevel(mid) >= level) {
+                hi = mid;
+            } else {
+                lo = mid;
+            }
+        }
+        return hi;
+    }
+}
@@ -1,10 +1,19 @@
 package world.bentobox.level.calculators;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bukkit.Bukkit;
 import org.bukkit.scheduler.BukkitTask;
@@ -12,60 +21,172 @@ import org.bukkit.scheduler.BukkitTask;
 import world.bentobox.bentobox.BentoBox;
 import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.level.Level;
-import world.bentobox.level.calculators.Results.Result;
 
 /**
- * A pipeliner that will process one island at a time
+ * A pipeliner that keeps up to the concurrent island calcs setting of islands
+ * being calculated at a time
  * @author tastybento
  *
  */
 public class Pipeliner {
 
+    /**
+     * Priority of a level calculation. Queued calculations with a higher priority
+     * are started first.
+     */
+    public enum Priority {
+        /**
+         * A player asked for the level of their island
+         */
+        PLAYER,
+        /**
+         * An admin or the console asked for the level of an island
+         */
+        ADMIN,
+        /**
+         * An island was created or reset and its initial count is being set
+         */
+        ZERO,
+        /**
+         * Logins, migrations and other background calculations
+         */
+        BACKGROUND
+    }
+
+    /**
+     * A queued calculation, its priority and when it was queued
+     */
+    private record Queued(IslandLevelCalculator calc, Priority priority, long time) {
+    }
+
     private static final int START_DURATION = 10; // 10 seconds
-    private final Queue<IslandLevelCalculator> toProcessQueue;
+    /**
+     * A queued calculation moves up one priority for each period it has waited,
+     * so that low priority calculations still complete
+     */
+    private static final long AGING_MILLIS = 30000; // 30 seconds
+    private final Map<Priority, Queue<Queued>> toProcessQueue = new EnumMap<>(Priority.class);
     private final Map<IslandLevelCalculator, Long> inProcessQueue;
+    /**
+     * Level calculations that are queued or in process, by island unique id. Zeroing
+     * calculations are not included.
+     */
+    private final Map<String, Queued> islandCalcs = new ConcurrentHashMap<>();
     private final BukkitTask task;
     private final Level addon;
     private long time;
     private long count;
+    private ExecutorService scanExecutor;
+    /**
+     * True once the queue has been stopped. The scan pool is not created again after that.
+     */
+    private volatile boolean stopped;
+    private final ChunkCountStore chunkCountStore;
+    private ChunkFingerprintCache chunkFingerprints;
 
     /**
      * Construct the pipeliner
      */
     public Pipeliner(Level addon) {
         this.addon = addon;
-        toProcessQueue = new ConcurrentLinkedQueue<>();
+        chunkCountStore = new ChunkCountStore(addon.getSettings().getIncrementalScansMaxIslands());
+        for (Priority priority : Priority.values()) {
+            toProcessQueue.put(priority, new ConcurrentLinkedQueue<>());
+        }
         inProcessQueue = new HashMap<>();
-        // Loop continuously - check every tick if there is an island to scan
+        // Loop continuously - check regularly if there is an island to scan. Slots are
+        // also refilled as soon as an island finishes.
         task = Bukkit.getScheduler().runTaskTimer(BentoBox.getInstance(), () -> {
             if (!BentoBox.getInstance().isEnabled()) {
                 cancel();
                 return;
             }
-            // Complete the current to Process queue first
-            if (!inProcessQueue.isEmpty() || toProcessQueue.isEmpty()) return;
-            for (int j = 0; j < addon.getSettings().getConcurrentIslandCalcs() && !toProcessQueue.isEmpty(); j++) {
-                IslandLevelCalculator iD = toProcessQueue.poll();
-                // Ignore deleted or unowned islands
-                if (!iD.getIsland().isDeleted() && !iD.getIsland().isUnowned()) {
-                    inProcessQueue.put(iD, System.currentTimeMillis());
-                    BentoBox.getInstance().log("Starting to scan island level at " + iD.getIsland().getCenter());
-                    // Start the scanning of a island with the first chunk
-                    scanIsland(iD);
-                }
-            }
+            fillSlots();
         }, 1L, 10L);
     }
 
+    /**
+     * Starts queued islands until the number of islands being calculated reaches
+     * the concurrent island calcs setting
+     */
+    private void fillSlots() {
+        while (inProcessQueue.size() < addon.getSettings().getConcurrentIslandCalcs() && !isQueueEmpty()
+                && !task.isCancelled()) {
+            IslandLevelCalculator iD = pollNext();
+            // Ignore deleted or unowned islands
+            if (!iD.getIsland().isDeleted() && !iD.getIsland().isUnowned()) {
+                inProcessQueue.put(iD, System.currentTimeMillis());
+                BentoBox.getInstance().log("Starting to scan island level at " + iD.getIsland().getCenter());
+                // Start the scanning of a island with the first chunk
+                scanIsland(iD);
+            } else {
+                removeIslandCalc(iD);
+                iD.getR().complete(null);
+            }
+        }
+    }
+
+    /**
+     * Called when an island calculation has finished so that its slot can be used
+     * by the next island in the queue
+     * @param iD - the calculation that has finished
+     */
+    void finished(IslandLevelCalculator iD) {
+        removeIslandCalc(iD);
+        if (inProcessQueue.remove(iD) != null && !isQueueEmpty()) {
+            // Start the next island on the next tick
+            Bukkit.getScheduler().runTask(BentoBox.getInstance(), this::fillSlots);
+        }
+    }
+
+    private void removeIslandCalc(IslandLevelCalculator iD) {
+        islandCalcs.computeIfPresent(iD.getIsland().getUniqueId(), (id, queued) -> queued.calc() == iD ? null : queued);
+    }
+
     private void cancel() {
         task.cancel();
     }
 
+    private boolean isQueueEmpty() {
+        return toProcessQueue.values().stream().allMatch(Queue::isEmpty);
+    }
+
+    /**
+     * Takes the next calculation to start from the queue. This is the calculation
+     * with the highest priority, after allowing for how long each has waited.
+     * @return the calculation, or null if the queue is empty
+     */
+    private IslandLevelCalculator pollNext() {
+        long now = System.currentTimeMillis();
+        Queue<Queued> next = null;
+        long nextRank = Long.MAX_VALUE;
+        for (Priority priority : Priority.values()) {
+            Queued head = toProcessQueue.get(priority).peek();
+            if (head != null) {
+                long rank = priority.ordinal() - (now - head.time()) / AGING_MILLIS;
+                if (rank < nextRank) {
+                    next = toProcessQueue.get(priority);
+                    nextRank = rank;
+                }
+            }
+        }
+        Queued queued = next == null ? null : next.poll();
+        return queued == null ? null : queued.calc();
+    }
+
     /**
      * @return number of islands currently in the queue or in process
      */
     public int getIslandsInQueue() {
-        return inProcessQueue.size() + toProcessQueue.size();
+        return inProcessQueue.size() + toProcessQueue.values().stream().mapToInt(Queue::size).sum();
+    }
+
+    /**
+     * @param priority - priority
+     * @return number of islands waiting in the queue with this priority
+     */
+    public int getIslandsInQueue(Priority priority) {
+        return toProcessQueue.get(priority).size();
     }
 
     /**
@@ -75,7 +196,7 @@ public class Pipeliner {
     private void scanIsland(IslandLevelCalculator iD) {
         if (iD.getIsland().isDeleted() || iD.getIsland().isUnowned() || task.isCancelled()) {
             // Island is deleted, so finish early with nothing
-            inProcessQueue.remove(iD);
+            finished(iD);
             iD.getR().complete(null);
             return;
         }
@@ -84,20 +205,39 @@ public class Pipeliner {
 
 
     /**
-     * Adds an island to the scanning queue but only if the island is not already in the queue
+     * Adds an island to the scanning queue. If the island is already queued or being
+     * calculated, the future of that calculation is returned instead.
      * @param island  - the island to scan
-     * @return CompletableFuture of the results. Results will be null if the island is already in the queue
+     * @return CompletableFuture of the results
      */
     public CompletableFuture<Results> addIsland(Island island) {
-        // Check if queue already contains island and it's not an island zero calculation
-        if (inProcessQueue.keySet().parallelStream().filter(IslandLevelCalculator::isNotZeroIsland)
-                .map(IslandLevelCalculator::getIsland).anyMatch(island::equals)
-                || toProcessQueue.parallelStream().filter(IslandLevelCalculator::isNotZeroIsland)
-                .map(IslandLevelCalculator::getIsland).anyMatch(island::equals)) {
-            return CompletableFuture.completedFuture(new Results(Result.IN_PROGRESS));
-        }
-        BentoBox.getInstance().log("Added island to Level queue: " + island.getCenter());
-        return addToQueue(island, false);
+        return addIsland(island, Priority.ADMIN);
+    }
+
+    /**
+     * Adds an island to the scanning queue. If the island is already queued or being
+     * calculated, the future of that calculation is returned instead, and a queued
+     * calculation is moved up to this priority if it is higher.
+     * @param island  - the island to scan
+     * @param priority - priority of the calculation
+     * @return CompletableFuture of the results
+     */
+    public CompletableFuture<Results> addIsland(Island island, Priority priority) {
+        // Done in one step so that two callers cannot both queue the island
+        Queued queued = islandCalcs.compute(island.getUniqueId(), (id, current) -> {
+            if (current == null) {
+                BentoBox.getInstance().log("Added island to Level queue: " + island.getCenter());
+                return addToQueue(island, false, priority);
+            }
+            if (priority.compareTo(current.priority()) < 0 && toProcessQueue.get(current.priority()).remove(current)) {
+                // Still waiting, so move it to the higher priority lane
+                Queued raised = new Queued(current.calc(), priority, current.time());
+                toProcessQueue.get(priority).add(raised);
+                return raised;
+            }
+            return current;
+        });
+        return queued.calc().getR();
     }
 
     /**
@@ -106,15 +246,26 @@ public class Pipeliner {
      * @return CompletableFuture of the results
      */
     public CompletableFuture<Results> zeroIsland(Island island) {
+        return zeroIsland(island, Priority.ZERO);
+    }
+
+    /**
+     * Adds an island to the scanning queue
+     * @param island  - the island to scan
+     * @param priority - priority of the calculation
+     * @return CompletableFuture of the results
+     */
+    public CompletableFuture<Results> zeroIsland(Island island, Priority priority) {
         BentoBox.getInstance().log("Zeroing island level for island at " + island.getCenter());
-        return addToQueue(island, true);
+        return addToQueue(island, true, priority).calc().getR();
     }
 
-    private CompletableFuture<Results> addToQueue(Island island, boolean zeroing) {
-        CompletableFuture<Results> r = new CompletableFuture<>();
-        toProcessQueue.add(new IslandLevelCalculator(addon, island, r, zeroing));
+    private Queued addToQueue(Island island, boolean zeroing, Priority priority) {
+        Queued queued = new Queued(new IslandLevelCalculator(addon, island, new CompletableFuture<>(), zeroing),
+                priority, System.currentTimeMillis());
+        toProcessQueue.get(priority).add(queued);
         count++;
-        return r;
+        return queued;
     }
 
     /**
@@ -135,13 +286,78 @@ public class Pipeliner {
     }
 
     /**
-     * Stop the current queue.
+     * Get the worker pool used to scan chunk snapshots. The pool is shared by all
+     * island calculations and is created on first use. Each chunk is a separate
+     * task that any idle worker can take, and each island only has a few chunks
+     * queued at a time, so large islands do not hold up small ones.
+     * @return the executor
+     * @throws RejectedExecutionException if the queue has been stopped
+     */
+    ExecutorService getScanExecutor() {
+        if (stopped) {
+            throw new RejectedExecutionException("Level queue has been stopped");
+        }
+        if (scanExecutor == null) {
+            int threads = addon.getSettings().getScanThreads();
+            AtomicInteger threadCount = new AtomicInteger();
+            scanExecutor = new ForkJoinPool(threads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("Level-Scanner-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, null, true);
+        }
+        return scanExecutor;
+    }
+
+    /**
+     * @return the chunk counts kept from earlier scans for incremental scanning
+     */
+    public ChunkCountStore getChunkCountStore() {
+        return chunkCountStore;
+    }
+
+    /**
+     * Forget the chunk counts kept for an island, so the next calculation scans every chunk
+     * @param island - island
+     */
+    public void clearChunkCounts(Island island) {
+        chunkCountStore.removeIsland(island.getUniqueId());
+        if (addon.getSettings().isSkipUnchangedChunks()) {
+            getChunkFingerprints().removeIsland(island.getUniqueId());
+        }
+    }
+
+    /**
+     * Get the saved chunk counts used to skip unchanged chunks. Created on first use.
+     * @return the saved chunk counts
+     */
+    ChunkFingerprintCache getChunkFingerprints() {
+        if (chunkFingerprints == null) {
+            chunkFingerprints = new ChunkFingerprintCache(addon);
+        }
+        return chunkFingerprints;
+    }
+
+    /**
+     * Stop the current queue. Calculations that are queued or in process are
+     * completed with null so that nobody is left waiting for them.
      */
     public void stop() {
         addon.log("Stopping Level queue");
+        stopped = true;
         task.cancel();
+        List<IslandLevelCalculator> unfinished = new ArrayList<>(inProcessQueue.keySet());
+        toProcessQueue.values().forEach(queue -> queue.forEach(queued -> unfinished.add(queued.calc())));
         this.inProcessQueue.clear();
-        this.toProcessQueue.clear();
+        this.toProcessQueue.values().forEach(Queue::clear);
+        this.islandCalcs.clear();
+        unfinished.forEach(calc -> calc.getR().complete(null));
+        chunkCountStore.clear();
+        if (scanExecutor != null) {
+            scanExecutor.shutdownNow();
+            scanExecutor = null;
+        }
     }
 
     /**
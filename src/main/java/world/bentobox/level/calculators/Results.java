@@ -4,7 +4,6 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
-import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 
 /**
@@ -29,19 +28,19 @@ public class Results {
     /**
      * MaterialData count anything above sea level
      */
-    final Multiset<Object> mdCount = HashMultiset.create();
+    final BlockCounter mdCount = new BlockCounter();
     /**
      * Underwater count
      */
-    final Multiset<Object> uwCount = HashMultiset.create();
+    final BlockCounter uwCount = new BlockCounter();
     /**
      * Not-in-config count - blocks not listed in the scoring config file
      */
-    final Multiset<Object> ncCount = HashMultiset.create();
+    final BlockCounter ncCount = new BlockCounter();
     /**
      * Blocks not counted because they exceeded limits
      */
-    final Multiset<Object> ofCount = HashMultiset.create();
+    final BlockCounter ofCount = new BlockCounter();
     // AtomicLong and AtomicInteger must be used because they are changed by multiple concurrent threads
     AtomicLong rawBlockCount = new AtomicLong(0);
     AtomicLong underWaterBlockCount = new AtomicLong(0);
@@ -95,6 +94,13 @@ public class Results {
     public List<String> getReport() {
         return report;
     }
+    /**
+     * Set the report
+     * @param report - report lines
+     */
+    public void setReport(List<String> report) {
+        this.report = report;
+    }
     /**
      * Set level
      * @param level - level
@@ -174,15 +180,29 @@ public class Results {
                 + ", pointsToNextLevel=" + pointsToNextLevel + ", totalPoints=" + totalPoints + ", initialLevel=" + initialLevel + "]";
     }*/
     /**
-     * @return the mdCount
+     * @return the mdCount as a multiset. Changes to it change the results.
+     * @see #getMdCounter()
      */
     public Multiset<Object> getMdCount() {
-        return mdCount;
+        return mdCount.asMultiset();
     }
     /**
-     * @return the uwCount
+     * @return the uwCount as a multiset. Changes to it change the results.
+     * @see #getUwCounter()
      */
     public Multiset<Object> getUwCount() {
+        return uwCount.asMultiset();
+    }
+    /**
+     * @return the count of blocks above sea level
+     */
+    public BlockCounter getMdCounter() {
+        return mdCount;
+    }
+    /**
+     * @return the count of blocks below sea level
+     */
+    public BlockCounter getUwCounter() {
         return uwCount;
     }
     /**
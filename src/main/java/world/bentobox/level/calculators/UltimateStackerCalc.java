@@ -10,18 +10,19 @@ import com.craftaro.ultimatestacker.api.utils.Stackable;
  * Isolates UltimateStacker imports so that they are only loaded if the plugin exists
  */
 public class UltimateStackerCalc {
-    public static void addStackers(Material material, Location location, Results results, boolean belowSeaLevel,
-            int value) {
+    /**
+     * Counts the extra blocks in an UltimateStacker block stack
+     * @param material - material of the block
+     * @param location - location of the block
+     * @param counts - block counts to add the stacked blocks to
+     * @return true if the block is a stack
+     */
+    public static boolean addStackers(Material material, Location location, BlockCounter counts) {
         Stackable stack = UltimateStackerApi.getBlockStackManager().getBlock(location);
         if (stack != null) {
-            if (belowSeaLevel) {
-                results.underWaterBlockCount.addAndGet((long) stack.getAmount() * value);
-                results.uwCount.add(material);
-            } else {
-                results.rawBlockCount.addAndGet((long) stack.getAmount() * value);
-                results.mdCount.add(material);
-            }
+            counts.add(material, stack.getAmount());
+            return true;
         }
+        return false;
     }
 }
-
@@ -5,7 +5,10 @@ import java.util.List;
 import world.bentobox.bentobox.api.commands.CompositeCommand;
 import world.bentobox.bentobox.api.localization.TextVariables;
 import world.bentobox.bentobox.api.user.User;
+import world.bentobox.level.IslandLevelsCache;
 import world.bentobox.level.Level;
+import world.bentobox.level.calculators.Pipeliner;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 
 public class AdminLevelStatusCommand extends CompositeCommand {
 
@@ -26,6 +29,19 @@ public class AdminLevelStatusCommand extends CompositeCommand {
     @Override
     public boolean execute(User user, String label, List<String> args) {
         user.sendMessage("admin.levelstatus.islands-in-queue", TextVariables.NUMBER, String.valueOf(addon.getPipeliner().getIslandsInQueue()));
+        Pipeliner pipeliner = addon.getPipeliner();
+        user.sendMessage("admin.levelstatus.queue-by-priority",
+                "[player]", String.valueOf(pipeliner.getIslandsInQueue(Priority.PLAYER)),
+                "[admin]", String.valueOf(pipeliner.getIslandsInQueue(Priority.ADMIN)),
+                "[zero]", String.valueOf(pipeliner.getIslandsInQueue(Priority.ZERO)),
+                "[background]", String.valueOf(pipeliner.getIslandsInQueue(Priority.BACKGROUND)));
+        IslandLevelsCache.Stats stats = addon.getManager().getLevelsCacheStats();
+        user.sendMessage("admin.levelstatus.cache", TextVariables.NUMBER, String.valueOf(stats.size()),
+                "[size]", String.valueOf(stats.weight() / 1024), "[hits]", String.valueOf(stats.hits()),
+                "[misses]", String.valueOf(stats.misses()), "[evictions]", String.valueOf(stats.evictions()));
+        IslandLevelsCache.WriteStats writeStats = addon.getManager().getLevelsWriteStats();
+        user.sendMessage("admin.levelstatus.saves", TextVariables.NUMBER, String.valueOf(writeStats.pending()),
+                "[writes]", String.valueOf(writeStats.writes()), "[coalesced]", String.valueOf(writeStats.coalesced()));
         return true;
     }
 }
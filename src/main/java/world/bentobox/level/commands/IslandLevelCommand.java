@@ -9,6 +9,7 @@ import world.bentobox.bentobox.api.localization.TextVariables;
 import world.bentobox.bentobox.api.user.User;
 import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.level.Level;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 import world.bentobox.level.calculators.Results;
 import world.bentobox.level.calculators.Results.Result;
 import world.bentobox.level.util.Utils;
@@ -44,7 +45,7 @@ public class IslandLevelCommand extends CompositeCommand {
             }
             // Ops, console and admin perms can request and calculate other player levels
             if (!user.isPlayer() || user.isOp() || user.hasPermission(this.getPermissionPrefix() + "admin.level")) {
-                return scanIsland(user, playerUUID);
+                return scanIsland(user, playerUUID, Priority.ADMIN);
             }
             // Request for another player's island level
             if (!user.getUniqueId().equals(playerUUID) ) {
@@ -68,12 +69,12 @@ public class IslandLevelCommand extends CompositeCommand {
         }
 
         // Self level request
-        return scanIsland(user, user.getUniqueId());
+        return scanIsland(user, user.getUniqueId(), Priority.PLAYER);
 
     }
 
 
-    private boolean scanIsland(User user, UUID playerUUID) {
+    private boolean scanIsland(User user, UUID playerUUID, Priority priority) {
         Island island = getIslands().getIsland(getWorld(), playerUUID);
         if (island == null) {
             user.sendMessage("general.errors.player-has-no-island");
@@ -88,7 +89,7 @@ public class IslandLevelCommand extends CompositeCommand {
         }
         // Get the old level
         long oldLevel = addon.getManager().getIslandLevel(getWorld(), playerUUID);
-        addon.getManager().calculateLevel(playerUUID, island).thenAccept(results -> {
+        addon.getManager().calculateLevel(playerUUID, island, priority).thenAccept(results -> {
             if (results == null) return; // island was deleted or become unowned
             if (results.getState().equals(Result.IN_PROGRESS)) {
                 user.sendMessage("island.level.in-progress");
@@ -10,7 +10,6 @@ import java.util.Map;
 import java.util.Objects;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Keyed;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Registry;
@@ -41,6 +40,8 @@ public class BlockConfig {
     private final Map<World, Map<EntityType, Integer>> worldSpawnerValues = new HashMap<>();
     private final List<String> hiddenBlocks;
     private Map<EntityType, Integer> spawnerValues = new EnumMap<>(EntityType.class);
+    private final Map<World, BlockValueTable> worldValueTables = new HashMap<>();
+    private final BlockValueTable valueTable;
     private Level addon;
 
     /**
@@ -87,6 +88,11 @@ public class BlockConfig {
         hiddenBlocks = blockValuesConfig.getStringList("hidden-blocks").stream().map(this::convert).toList();
         blockValuesConfig.set("hidden-blocks", hiddenBlocks); // Update
 
+        // Compile the lookup tables
+        valueTable = new BlockValueTable(blockValues, null, blockLimits);
+        worldBlockValues.forEach((world, values) -> worldValueTables.put(world,
+                new BlockValueTable(blockValues, values, blockLimits)));
+
         // All done
         blockValuesConfig.save(file);
     }
@@ -193,17 +199,20 @@ public class BlockConfig {
      * @return the limit or null if there isn't one
      */
     public Integer getLimit(Object obj) {
-        if (obj instanceof Material m) {
-            return blockLimits.get(m.getKey().getKey());
-        }
-        if (obj instanceof EntityType et) {
-            return blockLimits.get(et.name().toLowerCase(Locale.ENGLISH).concat(SPAWNER));
-        }
-        if (obj instanceof String s) {
-            return blockLimits.get(s.toLowerCase(Locale.ENGLISH));
-        }
+        // Namespaced IDs are not case sensitive
+        int limit = valueTable.limit(obj instanceof String s ? s.toLowerCase(Locale.ENGLISH) : obj);
+        return limit == BlockValueTable.UNSET ? null : limit;
+    }
 
-        return null;
+    /**
+     * Get the compiled values and limits for a world. The table is built when the
+     * block config is loaded and is the fastest way to look up many blocks.
+     *
+     * @param world the world context
+     * @return the table for the world, or the baseline table if the world has no values of its own
+     */
+    public BlockValueTable getValueTable(World world) {
+        return worldValueTables.getOrDefault(world, valueTable);
     }
 
     /**
@@ -222,31 +231,8 @@ public class BlockConfig {
      * @return the corresponding value, or null if no value is configured
      */
     public Integer getValue(World world, Object obj) {
-        // Extract the key based on the type of obj
-        String key = switch (obj) {
-        case Keyed keyed -> keyed.getKey().getKey();
-        case String str -> str;
-        default -> "";
-        };
-
-        if (key.isEmpty()) {
-            return null;
-        }
-
-        if (obj instanceof EntityType) {
-            key = key.concat(SPAWNER);
-        }
-
-        // Try to get the world-specific value first
-        Map<String, Integer> worldValues = getWorldBlockValues().get(world);
-        if (worldValues != null) {
-            Integer value = worldValues.get(key);
-            if (value != null) {
-                return value;
-            }
-        }
-        // Fall back to the baseline value
-        return getBlockValues().get(key);
+        int value = getValueTable(world).value(obj);
+        return value == BlockValueTable.UNSET ? null : value;
     }
 
     /**
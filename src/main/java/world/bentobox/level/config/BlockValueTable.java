@@ -0,0 +1,110 @@
+package world.bentobox.level.config;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+/**
+ * Immutable snapshot of the block values and limits for one world. Values and
+ * limits for materials and spawners are held in arrays indexed by ordinal, so a
+ * lookup is a single array read. Custom namespaced IDs use a map.
+ * <p>
+ * Built by {@link BlockConfig} when the block config is loaded. World values
+ * take priority over the baseline values, matching
+ * {@link BlockConfig#getValue(org.bukkit.World, Object)}.
+ */
+public final class BlockValueTable {
+
+    /**
+     * Returned by {@link #value(Object)} and {@link #limit(Object)} when there is no value or limit
+     */
+    public static final int UNSET = Integer.MIN_VALUE;
+    /**
+     * Start of the names of legacy materials. Material.isLegacy() is deprecated.
+     */
+    private static final String LEGACY_PREFIX = "LEGACY_";
+
+    private final int[] materialValues;
+    private final int[] materialLimits;
+    private final int[] entityValues;
+    private final int[] entityLimits;
+    private final Map<String, Integer> customValues;
+    private final Map<String, Integer> customLimits;
+
+    /**
+     * Compile a table
+     * @param baseline - baseline block values
+     * @param worldValues - world block values that override the baseline, or null if there are none
+     * @param limits - block limits
+     */
+    BlockValueTable(Map<String, Integer> baseline, Map<String, Integer> worldValues, Map<String, Integer> limits) {
+        Map<String, Integer> values = new HashMap<>(baseline);
+        if (worldValues != null) {
+            values.putAll(worldValues);
+        }
+        Material[] materials = Material.values();
+        materialValues = new int[materials.length];
+        materialLimits = new int[materials.length];
+        for (Material m : materials) {
+            // Legacy materials do not have keys
+            if (m.name().startsWith(LEGACY_PREFIX)) {
+                materialValues[m.ordinal()] = UNSET;
+                materialLimits[m.ordinal()] = UNSET;
+                continue;
+            }
+            String key = m.getKey().getKey();
+            materialValues[m.ordinal()] = values.getOrDefault(key, UNSET);
+            materialLimits[m.ordinal()] = limits.getOrDefault(key, UNSET);
+        }
+        EntityType[] entityTypes = EntityType.values();
+        entityValues = new int[entityTypes.length];
+        entityLimits = new int[entityTypes.length];
+        for (EntityType et : entityTypes) {
+            // UNKNOWN does not have a key
+            if (et == EntityType.UNKNOWN) {
+                entityValues[et.ordinal()] = UNSET;
+                entityLimits[et.ordinal()] = UNSET;
+                continue;
+            }
+            entityValues[et.ordinal()] = values.getOrDefault(et.getKey().getKey() + BlockConfig.SPAWNER, UNSET);
+            entityLimits[et.ordinal()] = limits.getOrDefault(et.name().toLowerCase(Locale.ENGLISH) + BlockConfig.SPAWNER,
+                    UNSET);
+        }
+        customValues = Map.copyOf(values);
+        // Keys are lowercased here so that each lookup does not have to
+        Map<String, Integer> lowerLimits = new HashMap<>();
+        limits.forEach((key, limit) -> lowerLimits.put(key.toLowerCase(Locale.ENGLISH), limit));
+        customLimits = Map.copyOf(lowerLimits);
+    }
+
+    /**
+     * Get the value of a block
+     * @param obj - Material, EntityType or namespaced ID
+     * @return the value or {@link #UNSET} if the block has no value
+     */
+    public int value(Object obj) {
+        return switch (obj) {
+        case Material m -> materialValues[m.ordinal()];
+        case EntityType et -> entityValues[et.ordinal()];
+        case String s -> customValues.getOrDefault(s, UNSET);
+        case null, default -> UNSET;
+        };
+    }
+
+    /**
+     * Get the limit of a block
+     * @param obj - Material, EntityType or lowercase namespaced ID
+     * @return the limit or {@link #UNSET} if the block has no limit
+     */
+    public int limit(Object obj) {
+        return switch (obj) {
+        case Material m -> materialLimits[m.ordinal()];
+        case EntityType et -> entityLimits[et.ordinal()];
+        case String s -> customLimits.getOrDefault(s, UNSET);
+        case null, default -> UNSET;
+        };
+    }
+}
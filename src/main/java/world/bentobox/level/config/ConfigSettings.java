@@ -45,6 +45,94 @@ public class ConfigSettings implements ConfigObject {
     @ConfigEntry(path = "calculation-timeout")
     private int calculationTimeout = 5;
 
+    @ConfigComment("")
+    @ConfigComment("Number of worker threads used to scan island chunks.")
+    @ConfigComment("1 scans chunks on one background thread. Higher values scan several chunks of an island")
+    @ConfigComment("at the same time, which speeds up large islands on multi-core servers.")
+    @ConfigEntry(path = "scan-threads")
+    private int scanThreads = 1;
+
+    @ConfigComment("")
+    @ConfigComment("Number of island chunks that can be loading or waiting to be scanned at the same time.")
+    @ConfigComment("Higher values keep the scanner busy while chunks load, but hold more chunk snapshots in memory.")
+    @ConfigEntry(path = "chunks-in-flight")
+    private int chunksInFlight = 16;
+
+    @ConfigComment("")
+    @ConfigComment("Incremental scans")
+    @ConfigComment("If true, the block counts of each island chunk are kept in memory after a scan and block changes")
+    @ConfigComment("are tracked, so the next level calculation only rescans chunks that have changed.")
+    @ConfigComment("Changes made without block events, e.g., by world editing plugins, are not seen until the chunk")
+    @ConfigComment("changes again or the server restarts. Uses more memory.")
+    @ConfigComment("Changes from dispensers and sponges are seen. Changes from other plugins that set blocks")
+    @ConfigComment("without an event are not.")
+    @ConfigEntry(path = "incremental-scans")
+    private boolean incrementalScans = false;
+
+    @ConfigComment("")
+    @ConfigComment("Number of islands whose chunk counts are kept in memory for incremental scans. When there")
+    @ConfigComment("are more, the counts of the least recently scanned island are dropped. 0 means no limit.")
+    @ConfigEntry(path = "incremental-scans-max-islands")
+    private int incrementalScansMaxIslands = 1000;
+
+    @ConfigComment("")
+    @ConfigComment("Skip unchanged chunks")
+    @ConfigComment("If true, the block counts of each island chunk are saved in the database with the chunk's")
+    @ConfigComment("inhabited time. A chunk whose inhabited time has not changed since it was last scanned uses")
+    @ConfigComment("its saved counts instead of being scanned again, even after a restart. The inhabited time")
+    @ConfigComment("only goes up while players are near a chunk, so chunks changed by plugins with no players")
+    @ConfigComment("nearby are not noticed. Most useful when nether and end islands are counted.")
+    @ConfigEntry(path = "skip-unchanged-chunks")
+    private boolean skipUnchangedChunks = false;
+
+    @ConfigComment("")
+    @ConfigComment("Live level tracking")
+    @ConfigComment("If true, island levels are updated straight away when blocks are placed or broken, and")
+    @ConfigComment("/island level shows the tracked level without scanning the island. An island is scanned")
+    @ConfigComment("once to get its starting counts. Changes that do not come from players placing or breaking")
+    @ConfigComment("blocks, e.g., explosions, pistons or growing crops, are picked up by the reconciliation scan.")
+    @ConfigComment("Not used in donations-only mode.")
+    @ConfigEntry(path = "live-tracking")
+    private boolean liveTracking = false;
+
+    @ConfigComment("")
+    @ConfigComment("How often, in minutes, islands that have changed are fully scanned when live tracking is on.")
+    @ConfigComment("This corrects any drift in the tracked levels. 0 turns off reconciliation scans.")
+    @ConfigEntry(path = "live-reconcile-minutes")
+    private int liveReconcileMinutes = 60;
+
+    @ConfigComment("")
+    @ConfigComment("Number of top islands in each world that are kept ready for the top ten, the top")
+    @ConfigComment("placeholders and other addons. They are updated when a level changes. Asking for")
+    @ConfigComment("more islands than this works them out on each request.")
+    @ConfigEntry(path = "top-snapshot-size")
+    private int topSnapshotSize = 10;
+
+    @ConfigComment("")
+    @ConfigComment("Approximate memory, in MB, that island level data can use. When there is more, the")
+    @ConfigComment("least recently used islands are dropped and loaded again when needed. Online players'")
+    @ConfigComment("islands and top islands are always kept. 0 means no limit.")
+    @ConfigEntry(path = "levels-cache-size-mb")
+    private int levelsCacheSizeMb = 64;
+
+    @ConfigComment("")
+    @ConfigComment("How often, in seconds, changed island levels are saved. Changes made in between are")
+    @ConfigComment("saved together. Everything is saved when the server stops.")
+    @ConfigEntry(path = "save-interval-seconds")
+    private int saveIntervalSeconds = 30;
+
+    @ConfigComment("")
+    @ConfigComment("Number of changed islands that are saved straight away instead of waiting for the")
+    @ConfigComment("next save. 0 means always wait.")
+    @ConfigEntry(path = "save-batch-size")
+    private int saveBatchSize = 100;
+
+    @ConfigComment("")
+    @ConfigComment("Number of threads used when every island's level data has to be loaded, e.g., the first")
+    @ConfigComment("time the rankings are made. 0 uses one thread per CPU core.")
+    @ConfigEntry(path = "load-threads")
+    private int loadThreads = 0;
+
 
     @ConfigComment("")
     @ConfigComment("Zero island levels on new island or island reset")
@@ -382,6 +470,209 @@ public class ConfigSettings implements ConfigObject {
     }
 
 
+    /**
+     * @return the number of threads used to scan the chunks of one island
+     */
+    public int getScanThreads() {
+        if (scanThreads < 1) scanThreads = 1;
+        return scanThreads;
+    }
+
+
+    /**
+     * @param scanThreads the number of threads used to scan the chunks of one island
+     */
+    public void setScanThreads(int scanThreads) {
+        if (scanThreads < 1) scanThreads = 1;
+        this.scanThreads = scanThreads;
+    }
+
+
+    /**
+     * @return the number of chunks that can be loading or waiting to be scanned at once
+     */
+    public int getChunksInFlight() {
+        if (chunksInFlight < 1) chunksInFlight = 1;
+        return chunksInFlight;
+    }
+
+
+    /**
+     * @param chunksInFlight the number of chunks that can be loading or waiting to be scanned at once
+     */
+    public void setChunksInFlight(int chunksInFlight) {
+        if (chunksInFlight < 1) chunksInFlight = 1;
+        this.chunksInFlight = chunksInFlight;
+    }
+
+
+    /**
+     * @return true if only changed chunks should be rescanned
+     */
+    public boolean isIncrementalScans() {
+        return incrementalScans;
+    }
+
+
+    /**
+     * @param incrementalScans true if only changed chunks should be rescanned
+     */
+    public void setIncrementalScans(boolean incrementalScans) {
+        this.incrementalScans = incrementalScans;
+    }
+
+
+    /**
+     * @return number of islands whose chunk counts are kept for incremental scans, 0 for no limit
+     */
+    public int getIncrementalScansMaxIslands() {
+        return incrementalScansMaxIslands;
+    }
+
+
+    /**
+     * @param incrementalScansMaxIslands number of islands whose chunk counts are kept for incremental scans
+     */
+    public void setIncrementalScansMaxIslands(int incrementalScansMaxIslands) {
+        if (incrementalScansMaxIslands < 0) incrementalScansMaxIslands = 0;
+        this.incrementalScansMaxIslands = incrementalScansMaxIslands;
+    }
+
+
+    /**
+     * @return true if chunks that have not changed since the last scan use their saved counts
+     */
+    public boolean isSkipUnchangedChunks() {
+        return skipUnchangedChunks;
+    }
+
+
+    /**
+     * @param skipUnchangedChunks true if chunks that have not changed since the last scan use their saved counts
+     */
+    public void setSkipUnchangedChunks(boolean skipUnchangedChunks) {
+        this.skipUnchangedChunks = skipUnchangedChunks;
+    }
+
+
+    /**
+     * @return true if island levels are tracked as blocks change
+     */
+    public boolean isLiveTracking() {
+        return liveTracking;
+    }
+
+
+    /**
+     * @param liveTracking true if island levels are tracked as blocks change
+     */
+    public void setLiveTracking(boolean liveTracking) {
+        this.liveTracking = liveTracking;
+    }
+
+
+    /**
+     * @return minutes between reconciliation scans of live tracked islands
+     */
+    public int getLiveReconcileMinutes() {
+        return liveReconcileMinutes;
+    }
+
+
+    /**
+     * @param liveReconcileMinutes minutes between reconciliation scans of live tracked islands
+     */
+    public void setLiveReconcileMinutes(int liveReconcileMinutes) {
+        if (liveReconcileMinutes < 0) liveReconcileMinutes = 0;
+        this.liveReconcileMinutes = liveReconcileMinutes;
+    }
+
+
+    /**
+     * @return number of top islands kept ready in each world
+     */
+    public int getTopSnapshotSize() {
+        return topSnapshotSize;
+    }
+
+
+    /**
+     * @param topSnapshotSize number of top islands kept ready in each world
+     */
+    public void setTopSnapshotSize(int topSnapshotSize) {
+        if (topSnapshotSize < 0) topSnapshotSize = 0;
+        this.topSnapshotSize = topSnapshotSize;
+    }
+
+
+    /**
+     * @return approximate memory in MB that island level data can use, 0 for no limit
+     */
+    public int getLevelsCacheSizeMb() {
+        return levelsCacheSizeMb;
+    }
+
+
+    /**
+     * @param levelsCacheSizeMb approximate memory in MB that island level data can use
+     */
+    public void setLevelsCacheSizeMb(int levelsCacheSizeMb) {
+        if (levelsCacheSizeMb < 0) levelsCacheSizeMb = 0;
+        this.levelsCacheSizeMb = levelsCacheSizeMb;
+    }
+
+
+    /**
+     * @return how often, in seconds, changed island levels are saved
+     */
+    public int getSaveIntervalSeconds() {
+        return saveIntervalSeconds;
+    }
+
+
+    /**
+     * @param saveIntervalSeconds how often, in seconds, changed island levels are saved
+     */
+    public void setSaveIntervalSeconds(int saveIntervalSeconds) {
+        if (saveIntervalSeconds < 1) saveIntervalSeconds = 1;
+        this.saveIntervalSeconds = saveIntervalSeconds;
+    }
+
+
+    /**
+     * @return number of changed islands that are saved straight away, 0 to always wait
+     */
+    public int getSaveBatchSize() {
+        return saveBatchSize;
+    }
+
+
+    /**
+     * @param saveBatchSize number of changed islands that are saved straight away
+     */
+    public void setSaveBatchSize(int saveBatchSize) {
+        if (saveBatchSize < 0) saveBatchSize = 0;
+        this.saveBatchSize = saveBatchSize;
+    }
+
+
+    /**
+     * @return number of threads used to load every island's level data
+     */
+    public int getLoadThreads() {
+        return loadThreads < 1 ? Runtime.getRuntime().availableProcessors() : loadThreads;
+    }
+
+
+    /**
+     * @param loadThreads number of threads used to load every island's level data, 0 for one per CPU core
+     */
+    public void setLoadThreads(int loadThreads) {
+        if (loadThreads < 0) loadThreads = 0;
+        this.loadThreads = loadThreads;
+    }
+
+
     /**
      * @return the zeroNewIslandLevels
      */
@@ -48,6 +48,9 @@ public class IslandActivitiesListeners implements Listener {
 
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onNewIsland(IslandResettedEvent e) {
+        // The old island chunk counts are no longer valid
+        addon.getPipeliner().clearChunkCounts(e.getIsland());
+        addon.getManager().clearLiveCounts(e.getIsland());
         if (addon.getSettings().isZeroNewIslandLevels()) {
             zeroIsland(e.getIsland());
         }
@@ -63,6 +66,7 @@ public class IslandActivitiesListeners implements Listener {
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onIslandDelete(IslandPreclearEvent e) {
+        addon.getPipeliner().clearChunkCounts(e.getIsland());
         remove(e.getIsland().getWorld(), e.getIsland().getUniqueId());
     }
 
@@ -85,11 +89,17 @@ public class IslandActivitiesListeners implements Listener {
         remove(e.getIsland().getWorld(), e.getIsland().getUniqueId());
     }
 
-    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onIsland(TeamJoinedEvent e) {
-        // TODO: anything to do here?
-        // Remove player from the top ten and level
-        // remove(e.getIsland().getWorld(), e.getPlayerUUID());
+        updateWeightedLevel(e.getIsland());
+    }
+
+    /**
+     * Update the island's weighted level once the team change has happened
+     * @param island - island
+     */
+    private void updateWeightedLevel(Island island) {
+        Bukkit.getScheduler().runTask(addon.getPlugin(), () -> addon.getManager().updateWeightedLevel(island));
     }
 
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
@@ -106,18 +116,14 @@ public class IslandActivitiesListeners implements Listener {
         // remove(e.getIsland().getWorld(), e.getPlayerUUID());
     }
 
-    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onIsland(TeamLeaveEvent e) {
-        // TODO: anything to do here?
-        // Remove player from the top ten and level
-        // remove(e.getIsland().getWorld(), e.getPlayerUUID());
+        updateWeightedLevel(e.getIsland());
     }
 
-    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onIsland(TeamKickEvent e) {
-        //// TODO: anything to do here?
-        // Remove player from the top ten and level
-        // remove(e.getIsland().getWorld(), e.getPlayerUUID());
+        updateWeightedLevel(e.getIsland());
     }
 
 }
@@ -1,16 +1,20 @@
 package world.bentobox.level.listeners;
 
 import java.util.Objects;
+import java.util.UUID;
 
+import org.bukkit.Bukkit;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import world.bentobox.level.Level;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 
 /**
- * Listens for when players join
+ * Listens for when players join and leave
  * @author tastybento
  *
  */
@@ -27,15 +31,26 @@ public class JoinLeaveListener implements Listener {
 
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onPlayerJoin(PlayerJoinEvent e) {
+        // Load the player's island data off the main thread before it is needed
+        addon.getManager().prefetchIslands(e.getPlayer().getUniqueId());
         // If level calc on login is enabled, run through all the worlds and calculate the level
         if (addon.getSettings().isCalcOnLogin()) {
             addon.getPlugin().getAddonsManager().getGameModeAddons().stream()
             .filter(gm -> !addon.getSettings().getGameModes().contains(gm.getDescription().getName()))
             .map(gm -> gm.getIslands().getIsland(gm.getOverWorld(), e.getPlayer().getUniqueId()))
             .filter(Objects::nonNull)
-            .forEach(island -> addon.getManager().calculateLevel(e.getPlayer().getUniqueId(), island));
+            .forEach(island -> addon.getManager().calculateLevel(e.getPlayer().getUniqueId(), island,
+                    Priority.BACKGROUND));
         }
+        // Remove the player's islands from the rankings if they do not have the permission
+        addon.getManager().updateTopTenPermission(e.getPlayer().getUniqueId());
+    }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        // Offline players are always ranked. Check after the player has gone.
+        UUID uuid = e.getPlayer().getUniqueId();
+        Bukkit.getScheduler().runTask(addon.getPlugin(), () -> addon.getManager().updateTopTenPermission(uuid));
     }
 
 }
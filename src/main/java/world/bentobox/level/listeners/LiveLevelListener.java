@@ -0,0 +1,80 @@
+package world.bentobox.level.listeners;
+
+import org.bukkit.Material;
+import org.bukkit.World.Environment;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.level.Level;
+
+/**
+ * Applies blocks that players place or break to live tracked island levels.
+ * Only registered if live tracking is enabled.
+ */
+public class LiveLevelListener implements Listener {
+
+    private final Level addon;
+
+    /**
+     * @param addon - addon
+     */
+    public LiveLevelListener(Level addon) {
+        this.addon = addon;
+    }
+
+    private void changed(Block block, Object key, int delta) {
+        if ((key instanceof Material material && material.isAir()) || !isScanned(block.getWorld().getEnvironment())
+                || !addon.isRegisteredGameModeWorld(block.getWorld())) {
+            return;
+        }
+        addon.getIslands().getProtectedIslandAt(block.getLocation()).filter(island -> island.getOwner() != null)
+                .ifPresent(island -> {
+                    if (key == Material.SPAWNER) {
+                        // A spawner is also counted as its mob type, which can be changed later with a
+                        // spawn egg, so it is left to the reconciliation scan
+                        addon.getManager().reconcileLater(island);
+                    } else {
+                        addon.getManager().applyBlockChange(island, key, isBelowSeaLevel(island, block), delta);
+                    }
+                });
+    }
+
+    private boolean isScanned(Environment environment) {
+        return switch (environment) {
+        case NETHER -> addon.getSettings().isNether();
+        case THE_END -> addon.getSettings().isEnd();
+        default -> true;
+        };
+    }
+
+    private boolean isBelowSeaLevel(Island island, Block block) {
+        int seaHeight = addon.getPlugin().getIWM().getSeaHeight(island.getWorld());
+        return seaHeight > 0 && block.getY() <= seaHeight;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent e) {
+        if (e instanceof BlockMultiPlaceEvent multi) {
+            // Includes the block that was placed
+            for (BlockState state : multi.getReplacedBlockStates()) {
+                changed(state.getBlock(), state.getType(), -1);
+                changed(state.getBlock(), state.getBlock().getType(), 1);
+            }
+            return;
+        }
+        changed(e.getBlock(), e.getBlockReplacedState().getType(), -1);
+        changed(e.getBlock(), e.getBlockPlaced().getType(), 1);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent e) {
+        changed(e.getBlock(), e.getBlock().getType(), -1);
+    }
+}
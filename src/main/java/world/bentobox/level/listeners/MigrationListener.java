@@ -28,6 +28,8 @@ public class MigrationListener implements Listener
     public void onBentoBoxReady(BentoBoxReadyEvent e) {
         // Load TopTens
         this.addon.getManager().loadTopTens();
+        // Load the islands of players who are already online, e.g., after a reload
+        this.addon.getManager().prefetchOnlinePlayers();
         /*
          * DEBUG code to generate fake islands and then try to level them all.
         Bukkit.getScheduler().runTaskLater(getPlugin(), () -> {
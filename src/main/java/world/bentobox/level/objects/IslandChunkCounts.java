@@ -0,0 +1,222 @@
+package world.bentobox.level.objects;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.annotations.Expose;
+
+import world.bentobox.bentobox.database.objects.DataObject;
+import world.bentobox.bentobox.database.objects.Table;
+
+/**
+ * Stores the block counts of each chunk of an island from its last scan, with a
+ * fingerprint of the chunk so that unchanged chunks do not need to be scanned
+ * again.
+ */
+@Table(name = "IslandChunkCounts")
+public class IslandChunkCounts implements DataObject {
+
+    /**
+     * uniqueId is the island's UUID
+     */
+    @Expose
+    private String uniqueId = "";
+
+    /**
+     * Chunk counts. The key is the world name and chunk coordinates.
+     */
+    @Expose
+    private Map<String, ChunkEntry> chunks = new HashMap<>();
+
+    /**
+     * Block counts of one chunk. A bean so that every database type can store it.
+     */
+    public static class ChunkEntry {
+        /**
+         * Chunk fingerprint when it was scanned
+         */
+        @Expose
+        private long fingerprint;
+        /**
+         * Island bounds and sea height when it was scanned
+         */
+        @Expose
+        private long layout;
+        /**
+         * Blocks above sea level. Keys are material names or namespaced IDs
+         */
+        @Expose
+        private Map<String, Integer> mdCount = new HashMap<>();
+        /**
+         * Blocks below sea level. Keys are material names or namespaced IDs
+         */
+        @Expose
+        private Map<String, Integer> uwCount = new HashMap<>();
+        /**
+         * True if the chunk has containers
+         */
+        @Expose
+        private boolean chests;
+        /**
+         * True if the chunk should be checked for furniture
+         */
+        @Expose
+        private boolean furniture;
+
+        /**
+         * Constructor for the database
+         */
+        public ChunkEntry() {
+            // Filled in by the setters
+        }
+
+        /**
+         * @param fingerprint - chunk fingerprint when it was scanned
+         * @param layout - island bounds and sea height when it was scanned
+         * @param mdCount - blocks above sea level
+         * @param uwCount - blocks below sea level
+         * @param chests - true if the chunk has containers
+         * @param furniture - true if the chunk should be checked for furniture
+         */
+        public ChunkEntry(long fingerprint, long layout, Map<String, Integer> mdCount,
+                Map<String, Integer> uwCount, boolean chests, boolean furniture) {
+            this.fingerprint = fingerprint;
+            this.layout = layout;
+            this.mdCount = mdCount;
+            this.uwCount = uwCount;
+            this.chests = chests;
+            this.furniture = furniture;
+        }
+
+        /**
+         * @return the fingerprint
+         */
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * @param fingerprint the fingerprint to set
+         */
+        public void setFingerprint(long fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * @return the layout
+         */
+        public long getLayout() {
+            return layout;
+        }
+
+        /**
+         * @param layout the layout to set
+         */
+        public void setLayout(long layout) {
+            this.layout = layout;
+        }
+
+        /**
+         * @return the blocks above sea level
+         */
+        public Map<String, Integer> getMdCount() {
+            if (mdCount == null) {
+                mdCount = new HashMap<>();
+            }
+            return mdCount;
+        }
+
+        /**
+         * @param mdCount the blocks above sea level to set
+         */
+        public void setMdCount(Map<String, Integer> mdCount) {
+            this.mdCount = mdCount;
+        }
+
+        /**
+         * @return the blocks below sea level
+         */
+        public Map<String, Integer> getUwCount() {
+            if (uwCount == null) {
+                uwCount = new HashMap<>();
+            }
+            return uwCount;
+        }
+
+        /**
+         * @param uwCount the blocks below sea level to set
+         */
+        public void setUwCount(Map<String, Integer> uwCount) {
+            this.uwCount = uwCount;
+        }
+
+        /**
+         * @return true if the chunk has containers
+         */
+        public boolean isChests() {
+            return chests;
+        }
+
+        /**
+         * @param chests the chests to set
+         */
+        public void setChests(boolean chests) {
+            this.chests = chests;
+        }
+
+        /**
+         * @return true if the chunk should be checked for furniture
+         */
+        public boolean isFurniture() {
+            return furniture;
+        }
+
+        /**
+         * @param furniture the furniture to set
+         */
+        public void setFurniture(boolean furniture) {
+            this.furniture = furniture;
+        }
+    }
+
+    /**
+     * Constructor for a new island
+     * @param islandUUID - island UUID
+     */
+    public IslandChunkCounts(String islandUUID) {
+        uniqueId = islandUUID;
+    }
+
+    /**
+     * @return the uniqueId
+     */
+    @Override
+    public String getUniqueId() {
+        return uniqueId;
+    }
+
+    /**
+     * @param uniqueId the uniqueId to set
+     */
+    @Override
+    public void setUniqueId(String uniqueId) {
+        this.uniqueId = uniqueId;
+    }
+
+    /**
+     * @return the chunk counts
+     */
+    public Map<String, ChunkEntry> getChunks() {
+        if (chunks == null) {
+            chunks = new HashMap<>();
+        }
+        return chunks;
+    }
+
+    /**
+     * @param chunks the chunk counts to set
+     */
+    public void setChunks(Map<String, ChunkEntry> chunks) {
+        this.chunks = chunks;
+    }
+}
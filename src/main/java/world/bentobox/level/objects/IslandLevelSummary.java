@@ -0,0 +1,148 @@
+package world.bentobox.level.objects;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import com.google.gson.annotations.Expose;
+
+import world.bentobox.bentobox.database.objects.DataObject;
+import world.bentobox.bentobox.database.objects.Table;
+
+/**
+ * The parts of an island's level data that are needed for the rankings. These
+ * are small, so the rankings can be built at startup without loading every
+ * island's full level data.
+ */
+@Table(name = "IslandLevelSummary")
+public class IslandLevelSummary implements DataObject {
+
+    /**
+     * uniqueId is the island's UUID
+     */
+    @Expose
+    private String uniqueId = "";
+
+    /**
+     * Name of the island's world
+     */
+    @Expose
+    private String world;
+
+    /**
+     * Island level
+     */
+    @Expose
+    private long level;
+
+    /**
+     * Number of island members
+     */
+    @Expose
+    private int members;
+
+    /**
+     * Island owner
+     */
+    @Expose
+    private UUID owner;
+
+    /**
+     * Constructor for a new island
+     * @param islandUUID - island UUID
+     */
+    public IslandLevelSummary(String islandUUID) {
+        uniqueId = islandUUID;
+    }
+
+    /**
+     * @return the uniqueId
+     */
+    @Override
+    public String getUniqueId() {
+        return uniqueId;
+    }
+
+    /**
+     * @param uniqueId the uniqueId to set
+     */
+    @Override
+    public void setUniqueId(String uniqueId) {
+        this.uniqueId = uniqueId;
+    }
+
+    /**
+     * @return the world name
+     */
+    public String getWorld() {
+        return world;
+    }
+
+    /**
+     * @param world the world name to set
+     */
+    public void setWorld(String world) {
+        this.world = world;
+    }
+
+    /**
+     * @return the level
+     */
+    public long getLevel() {
+        return level;
+    }
+
+    /**
+     * @param level the level to set
+     */
+    public void setLevel(long level) {
+        this.level = level;
+    }
+
+    /**
+     * @return the number of members
+     */
+    public int getMembers() {
+        return members;
+    }
+
+    /**
+     * @param members the number of members to set
+     */
+    public void setMembers(int members) {
+        this.members = members;
+    }
+
+    /**
+     * @return the owner
+     */
+    public UUID getOwner() {
+        return owner;
+    }
+
+    /**
+     * @param owner the owner to set
+     */
+    public void setOwner(UUID owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Set all the values
+     * @param world - world name
+     * @param level - level
+     * @param members - number of members
+     * @param owner - owner
+     * @return true if anything changed
+     */
+    public boolean update(String world, long level, int members, UUID owner) {
+        if (Objects.equals(this.world, world) && this.level == level && this.members == members
+                && Objects.equals(this.owner, owner)) {
+            return false;
+        }
+        this.world = world;
+        this.level = level;
+        this.members = members;
+        this.owner = owner;
+        return true;
+    }
+}
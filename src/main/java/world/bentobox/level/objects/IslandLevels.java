@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Material;
 import org.bukkit.entity.EntityType;
@@ -76,6 +77,18 @@ public class IslandLevels implements DataObject {
     @Expose
     private Map<Object, Integer> mdCount;
 
+    /**
+     * The count maps that have already had their keys converted, so they are not
+     * converted again on every read
+     */
+    private transient Map<Object, Integer> uwConverted;
+    private transient Map<Object, Integer> mdConverted;
+
+    /**
+     * Keys that have been converted from their saved names
+     */
+    private static final Map<String, Object> KEYS = new ConcurrentHashMap<>();
+
     /**
      * Donated blocks - blocks permanently contributed to island level.
      * Key is the material name (String), value is the count donated.
@@ -92,12 +105,30 @@ public class IslandLevels implements DataObject {
     private Long donatedPoints;
 
     /**
-     * Audit log of all donations made to this island.
+     * Audit log of the most recent donations made to this island. Older records
+     * are moved to the donation archive.
      * Null-safe for backwards compatibility.
      */
     @Expose
     private List<DonationRecord> donationLog;
 
+    /**
+     * Total point value donated by each donor. Key is the donor's UUID.
+     * Null-safe for backwards compatibility.
+     */
+    @Expose
+    private Map<String, Long> donorPoints;
+
+    /**
+     * Records removed from the donation log that have not been archived yet
+     */
+    private transient List<DonationRecord> toArchive;
+
+    /**
+     * Number of recent donations kept in the donation log
+     */
+    public static final int DONATION_LOG_SIZE = 100;
+
     /**
      * Constructor for new island
      * @param islandUUID - island UUID
@@ -201,7 +232,10 @@ public class IslandLevels implements DataObject {
      */
     public Map<Object, Integer> getUwCount() {
         // Loaded objects come in as strings, so need to be converted to Material Or EntityTypes
-        uwCount = convertMap(uwCount);
+        if (uwCount == null || uwCount != uwConverted) {
+            uwCount = convertMap(uwCount);
+            uwConverted = uwCount;
+        }
         return uwCount;
     }
 
@@ -219,38 +253,41 @@ public class IslandLevels implements DataObject {
      */
     public Map<Object, Integer> getMdCount() {
         // Loaded objects come in as strings, so need to be converted to Material Or EntityTypes
-        mdCount = convertMap(mdCount);
+        if (mdCount == null || mdCount != mdConverted) {
+            mdCount = convertMap(mdCount);
+            mdConverted = mdCount;
+        }
         return mdCount;
     }
 
-    private Map<Object, Integer> convertMap(Map<Object, Integer> blockCountMap) {
+    private static Map<Object, Integer> convertMap(Map<Object, Integer> blockCountMap) {
+        if (blockCountMap == null) {
+            return new HashMap<>();
+        }
+        if (blockCountMap.keySet().stream().noneMatch(String.class::isInstance)) {
+            // Nothing to convert
+            return blockCountMap;
+        }
         Map<Object, Integer> convertedMap = new HashMap<>();
+        blockCountMap.forEach((key, value) -> convertedMap.put(key instanceof String keyStr ? convertKey(keyStr) : key, value));
+        return convertedMap;
+    }
 
-        for (Map.Entry<Object, Integer> entry : blockCountMap.entrySet()) {
-            Object key = entry.getKey();
-            Integer value = entry.getValue();
-
-            if (key instanceof String keyStr) {
-                // First, try converting to Material
-                Material material = Material.matchMaterial(keyStr);
-                if (material != null) {
-                    convertedMap.put(material, value);
-                } else {
-                    // Fallback to converting to EntityType (using uppercase as enum constants are uppercase)
-                    try {
-                        EntityType entityType = EntityType.valueOf(keyStr.toUpperCase(Locale.ENGLISH));
-                        convertedMap.put(entityType, value);
-                    } catch (IllegalArgumentException ex) {
-                        // No valid Material or EntityType found.
-                        convertedMap.put(key, value); // Leave the key unchanged.
-                    }
-                }
-            } else {
-                // If the key is not a String, add it directly.
-                convertedMap.put(key, value);
+    private static Object convertKey(String keyStr) {
+        return KEYS.computeIfAbsent(keyStr, k -> {
+            // First, try converting to Material
+            Material material = Material.matchMaterial(k);
+            if (material != null) {
+                return material;
             }
-        }
-        return convertedMap;
+            // Fallback to converting to EntityType (using uppercase as enum constants are uppercase)
+            try {
+                return EntityType.valueOf(k.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException ex) {
+                // No valid Material or EntityType found. Leave the key unchanged.
+                return k;
+            }
+        });
     }
 
     /**
@@ -275,6 +312,20 @@ public class IslandLevels implements DataObject {
         this.initialCount = initialCount;
     }
 
+    /**
+     * Estimate how much memory this object uses
+     * @return approximate size in bytes
+     */
+    public long estimateSize() {
+        long entries = size(uwCount) + size(mdCount) + size(donatedBlocks) + size(donorPoints);
+        long records = donationLog == null ? 0 : donationLog.size();
+        return 256 + entries * 64 + records * 120;
+    }
+
+    private static int size(Map<?, ?> map) {
+        return map == null ? 0 : map.size();
+    }
+
     // ---- Donation fields (null-safe for backwards compatibility) ----
 
     /**
@@ -322,7 +373,8 @@ public class IslandLevels implements DataObject {
     }
 
     /**
-     * Get the donation audit log.
+     * Get the most recent donations, oldest first. At most {@link #DONATION_LOG_SIZE}
+     * are kept once a new donation is added.
      * @return list of donation records, never null
      */
     public List<DonationRecord> getDonationLog() {
@@ -349,7 +401,50 @@ public class IslandLevels implements DataObject {
     public void addDonation(String donorUUID, String material, int count, long points) {
         getDonatedBlocks().merge(material, count, Integer::sum);
         this.donatedPoints = getDonatedPoints() + points;
-        getDonationLog().add(new DonationRecord(System.currentTimeMillis(), donorUUID, material, count, points));
+        getDonorPoints().merge(donorUUID, points, Long::sum);
+        List<DonationRecord> log = getDonationLog();
+        log.add(new DonationRecord(System.currentTimeMillis(), donorUUID, material, count, points));
+        if (log.size() > DONATION_LOG_SIZE) {
+            // Move the oldest records out so the log does not keep growing
+            List<DonationRecord> oldest = log.subList(0, log.size() - DONATION_LOG_SIZE);
+            if (toArchive == null) {
+                toArchive = new ArrayList<>();
+            }
+            toArchive.addAll(oldest);
+            oldest.clear();
+        }
+    }
+
+    /**
+     * Get the total points donated by each donor, including donations that are no
+     * longer in the donation log
+     * @return map of donor UUID to points, never null
+     */
+    public Map<String, Long> getDonorPoints() {
+        if (donorPoints == null) {
+            // Data from before donor totals were kept still has every donation in the log
+            donorPoints = new HashMap<>();
+            getDonationLog().forEach(d -> donorPoints.merge(d.donorUUID(), d.points(), Long::sum));
+        }
+        return donorPoints;
+    }
+
+    /**
+     * @param donorPoints the donor totals to set
+     */
+    public void setDonorPoints(Map<String, Long> donorPoints) {
+        this.donorPoints = donorPoints;
+    }
+
+    /**
+     * Take the records that have been removed from the donation log so that they
+     * can be archived
+     * @return records, oldest first. Empty if there are none.
+     */
+    public List<DonationRecord> takeArchivedDonations() {
+        List<DonationRecord> records = toArchive == null ? List.of() : toArchive;
+        toArchive = null;
+        return records;
     }
 
     /**
@@ -1,13 +1,17 @@
 package world.bentobox.level.objects;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.World;
+import org.eclipse.jdt.annotation.Nullable;
 
 import com.google.gson.annotations.Expose;
 
+import world.bentobox.level.util.RankedMap;
+
 /**
  * This class stores the top ten.
  * 
@@ -20,14 +24,26 @@ public class TopTenData {
     @Expose
     private String uniqueId = "";
     @Expose
-    private Map<String, Long> topTen = new ConcurrentHashMap<>();
+    private RankedMap topTen = new RankedMap();
+    // Levels divided by the number of island members
+    private RankedMap weightedTopTen = new RankedMap();
 
     public TopTenData(World k) {
 	uniqueId = k.getName().toLowerCase(Locale.ENGLISH);
     }
 
     /**
-     * @return the topTen
+     * @param k       - world
+     * @param topSize - number of top islands to keep ready
+     */
+    public TopTenData(World k, int topSize) {
+	this(k);
+	topTen = new RankedMap(topSize);
+	weightedTopTen = new RankedMap(topSize);
+    }
+
+    /**
+     * @return the topTen. Changes to the map keep the rank order up to date.
      */
     public Map<String, Long> getTopTen() {
 	return topTen;
@@ -37,7 +53,83 @@ public class TopTenData {
      * @param topTen the topTen to set
      */
     public void setTopTen(Map<String, Long> topTen) {
-	this.topTen = topTen;
+	RankedMap ranked = new RankedMap(this.topTen.getTopSize());
+	ranked.putAll(topTen);
+	this.topTen = ranked;
+    }
+
+    /**
+     * @return the weighted top ten, where levels are divided by the number of island
+     *         members. Kept up to date by the levels manager.
+     */
+    public Map<String, Long> getWeightedTopTen() {
+	return weightedTopTen;
+    }
+
+    /**
+     * Get the rank of an island. Only islands with a level above zero are ranked.
+     * 
+     * @param islandId - island unique ID
+     * @return rank where 1 is the top rank. Islands that are not ranked get the rank
+     *         after the lowest ranked island.
+     */
+    public int getRank(@Nullable String islandId) {
+	synchronized (topTen) {
+	    Long level = islandId == null ? null : topTen.get(islandId);
+	    if (level == null || level <= 0) {
+		return topTen.countAbove(0) + 1;
+	    }
+	    return topTen.getPosition(islandId) + 1;
+	}
+    }
+
+    /**
+     * Count the islands with a level higher than a level
+     * 
+     * @param level - level
+     * @return number of islands
+     */
+    public int countAbove(long level) {
+	return topTen.countAbove(level);
+    }
+
+    /**
+     * Get the top ranked islands with a level above zero. Up to the top size given
+     * when this was made, this is a snapshot that is kept up to date.
+     * 
+     * @param size - maximum number of islands
+     * @return unmodifiable map of island unique ID to level, highest level first
+     */
+    public Map<String, Long> getTop(int size) {
+	return getTop(topTen, size);
+    }
+
+    /**
+     * Get the top ranked islands by weighted level with a weighted level above zero
+     * 
+     * @param size - maximum number of islands
+     * @return unmodifiable map of island unique ID to weighted level, highest first
+     */
+    public Map<String, Long> getWeightedTop(int size) {
+	return getTop(weightedTopTen, size);
+    }
+
+    private static Map<String, Long> getTop(RankedMap ranked, int size) {
+	if (size > ranked.getTopSize()) {
+	    return Collections.unmodifiableMap(ranked.getTop(size, 0));
+	}
+	Map<String, Long> top = ranked.getTopSnapshot();
+	if (size >= top.size()) {
+	    return top;
+	}
+	Map<String, Long> result = new LinkedHashMap<>();
+	for (Map.Entry<String, Long> en : top.entrySet()) {
+	    if (result.size() == size) {
+		break;
+	    }
+	    result.put(en.getKey(), en.getValue());
+	}
+	return Collections.unmodifiableMap(result);
     }
 
 }
@@ -0,0 +1,111 @@
+package world.bentobox.level.util;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.bentobox.database.objects.DataObject;
+import world.bentobox.level.Level;
+
+/**
+ * Loads many database objects on several threads and hands each one on as
+ * soon as it is loaded, instead of loading them all into a list first. Only a
+ * few objects are held at a time, so memory use stays flat however many there
+ * are. Progress is logged while it runs.
+ *
+ * @param <T> type of object
+ */
+public class BulkLoader<T extends DataObject> {
+
+    private static final long PROGRESS_MILLIS = 5000;
+    /**
+     * Objects that can be loaded or waiting to be used for each thread
+     */
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final Level addon;
+    private final Database<T> handler;
+    private final int threads;
+    private final String name;
+
+    /**
+     * @param addon   - addon
+     * @param handler - database to load from
+     * @param threads - number of loading threads
+     * @param name    - what is being loaded, for the progress messages
+     */
+    public BulkLoader(Level addon, Database<T> handler, int threads, String name) {
+        this.addon = addon;
+        this.handler = handler;
+        this.threads = Math.max(1, threads);
+        this.name = name;
+    }
+
+    /**
+     * Load objects and give each one to a consumer as soon as it is loaded. The
+     * consumer is called from several threads at the same time. Objects that do
+     * not exist are skipped. This waits until everything is loaded, so do not
+     * call it on the main thread.
+     *
+     * @param ids      - unique IDs of the objects to load
+     * @param consumer - consumer of the loaded objects
+     * @return number of objects loaded
+     */
+    public int load(Collection<String> ids, Consumer<T> consumer) {
+        int total = ids.size();
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger loaded = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "Level-Loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.currentTimeMillis();
+        long nextReport = start + PROGRESS_MILLIS;
+        try {
+            for (String id : ids) {
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        T object = handler.objectExists(id) ? handler.loadObject(id) : null;
+                        if (object != null) {
+                            consumer.accept(object);
+                            loaded.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        addon.logError("Could not load " + id + ": " + e.getMessage());
+                    } finally {
+                        done.incrementAndGet();
+                        inFlight.release();
+                    }
+                });
+                if (System.currentTimeMillis() >= nextReport) {
+                    report(done.get(), total, start);
+                    nextReport = System.currentTimeMillis() + PROGRESS_MILLIS;
+                }
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(PROGRESS_MILLIS, TimeUnit.MILLISECONDS)) {
+                report(done.get(), total, start);
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        report(done.get(), total, start);
+        return loaded.get();
+    }
+
+    private void report(int done, int total, long start) {
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        addon.log("Loaded " + done + " of " + total + " " + name + " in " + (millis / 1000) + "s ("
+                + (done * 1000L / millis) + " per second)");
+    }
+}
@@ -0,0 +1,319 @@
+package world.bentobox.level.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Map of island unique IDs to levels that also keeps the islands in rank order,
+ * highest level first. Islands with the same level are ordered by unique ID.
+ * Rank, top and count queries take O(log n) time instead of sorting every
+ * island.
+ * <p>
+ * Lookups use a concurrent map. The rank order is kept in a treap where each
+ * node knows the size of its subtree, and is guarded by this map's lock.
+ * <p>
+ * The top islands with a level above zero can also be kept as an immutable
+ * snapshot. It is only rebuilt when a change reaches the top, and readers get it
+ * without locking.
+ */
+public class RankedMap extends AbstractMap<String, Long> {
+
+    private static final class Node {
+        private final long value;
+        private final String key;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(String key, long value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final Map<String, Long> map = new ConcurrentHashMap<>();
+    private Node root;
+    private final int topSize;
+    private volatile Map<String, Long> top = Map.of();
+
+    /**
+     * Map with no top snapshot
+     */
+    public RankedMap() {
+        this(0);
+    }
+
+    /**
+     * @param topSize - number of top islands to keep in the snapshot
+     */
+    public RankedMap(int topSize) {
+        this.topSize = topSize;
+    }
+
+    @Override
+    public Long get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public synchronized Long put(String key, Long value) {
+        Objects.requireNonNull(value);
+        Long old = map.put(key, value);
+        if (old != null) {
+            root = delete(root, key, old);
+        }
+        root = insert(root, new Node(key, value));
+        if (topSize > 0 && (top.containsKey(key) || (value > 0 && getPosition(key) < topSize))) {
+            updateTop();
+        }
+        return old;
+    }
+
+    @Override
+    public synchronized Long remove(Object key) {
+        Long old = map.remove(key);
+        if (old != null) {
+            root = delete(root, (String) key, old);
+            if (top.containsKey(key)) {
+                updateTop();
+            }
+        }
+        return old;
+    }
+
+    @Override
+    public synchronized void clear() {
+        map.clear();
+        root = null;
+        top = Map.of();
+    }
+
+    private void updateTop() {
+        top = Collections.unmodifiableMap(getTop(topSize, 0));
+    }
+
+    /**
+     * @return number of top islands kept in the snapshot
+     */
+    public int getTopSize() {
+        return topSize;
+    }
+
+    /**
+     * Get the snapshot of the top islands with a level above zero
+     *
+     * @return unmodifiable map of island unique ID to level, highest level first
+     */
+    public Map<String, Long> getTopSnapshot() {
+        return top;
+    }
+
+    @Override
+    public Set<Entry<String, Long>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Long>> iterator() {
+                Iterator<Entry<String, Long>> it = map.entrySet().iterator();
+                return new Iterator<>() {
+                    private Entry<String, Long> last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Long> next() {
+                        // Entries cannot be set because that would skip the rank order
+                        last = new SimpleImmutableEntry<>(it.next());
+                        return last;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        RankedMap.this.remove(last.getKey());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    /**
+     * Get the number of islands ranked above an island
+     *
+     * @param key - island unique ID
+     * @return number of islands ranked above, or -1 if the island is not in the map
+     */
+    public synchronized int getPosition(String key) {
+        Long value = map.get(key);
+        if (value == null) {
+            return -1;
+        }
+        int position = 0;
+        Node n = root;
+        while (n != null) {
+            int c = compare(key, value, n);
+            if (c < 0) {
+                n = n.left;
+            } else if (c > 0) {
+                position += size(n.left) + 1;
+                n = n.right;
+            } else {
+                return position + size(n.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Count the islands with a level higher than a level
+     *
+     * @param level - level
+     * @return number of islands
+     */
+    public synchronized int countAbove(long level) {
+        int count = 0;
+        Node n = root;
+        while (n != null) {
+            if (n.value > level) {
+                count += size(n.left) + 1;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the top ranked islands with a level higher than a level
+     *
+     * @param size - maximum number of islands
+     * @param above - only islands with a higher level than this are returned
+     * @return map of island unique ID to level, highest level first
+     */
+    public synchronized Map<String, Long> getTop(int size, long above) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        while ((n != null || !stack.isEmpty()) && result.size() < size) {
+            if (n != null) {
+                stack.push(n);
+                n = n.left;
+            } else {
+                n = stack.pop();
+                if (n.value <= above) {
+                    break;
+                }
+                result.put(n.key, n.value);
+                n = n.right;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compare an entry with a node in rank order
+     */
+    private static int compare(String key, long value, Node n) {
+        return value != n.value ? Long.compare(n.value, value) : key.compareTo(n.key);
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static Node update(Node n) {
+        n.size = 1 + size(n.left) + size(n.right);
+        return n;
+    }
+
+    private static Node insert(Node n, Node x) {
+        if (n == null) {
+            return x;
+        }
+        if (compare(x.key, x.value, n) < 0) {
+            n.left = insert(n.left, x);
+            if (n.left.priority > n.priority) {
+                // Rotate right
+                Node l = n.left;
+                n.left = l.right;
+                l.right = update(n);
+                n = l;
+            }
+        } else {
+            n.right = insert(n.right, x);
+            if (n.right.priority > n.priority) {
+                // Rotate left
+                Node r = n.right;
+                n.right = r.left;
+                r.left = update(n);
+                n = r;
+            }
+        }
+        return update(n);
+    }
+
+    private static Node delete(Node n, String key, long value) {
+        if (n == null) {
+            return null;
+        }
+        int c = compare(key, value, n);
+        if (c < 0) {
+            n.left = delete(n.left, key, value);
+        } else if (c > 0) {
+            n.right = delete(n.right, key, value);
+        } else {
+            return merge(n.left, n.right);
+        }
+        return update(n);
+    }
+
+    /**
+     * Merge two treaps where every node in a is ranked above every node in b
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+}
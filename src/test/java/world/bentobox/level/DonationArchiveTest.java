@@ -0,0 +1,47 @@
+package world.bentobox.level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import world.bentobox.level.objects.IslandLevels.DonationRecord;
+
+/**
+ * Tests for {@link DonationArchive}
+ */
+class DonationArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private DonationArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = new DonationArchive(dir.resolve("donations").toFile());
+    }
+
+    @Test
+    void testAppend() throws IOException {
+        archive.append("island1", List.of(new DonationRecord(1L, "donor-a", "STONE", 3, 15L)));
+        archive.append("island1", List.of(new DonationRecord(2L, "donor-b", "DIRT", 2, 4L)));
+        List<String> lines = Files.readAllLines(archive.getFile("island1").toPath());
+        assertEquals(List.of("1,donor-a,STONE,3,15", "2,donor-b,DIRT,2,4"), lines);
+    }
+
+    @Test
+    void testAppendNothing() throws IOException {
+        archive.append("island1", List.of());
+        File file = archive.getFile("island1");
+        assertFalse(file.exists());
+    }
+}
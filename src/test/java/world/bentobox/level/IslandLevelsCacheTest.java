@@ -0,0 +1,242 @@
+package world.bentobox.level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.level.objects.IslandLevels;
+
+/**
+ * Tests for {@link IslandLevelsCache}
+ */
+class IslandLevelsCacheTest extends CommonTestSetup {
+
+    @Mock
+    private Database<IslandLevels> handler;
+
+    private IslandLevels stored;
+    private IslandLevelsCache cache;
+
+    @Override
+    @BeforeEach
+    protected void setUp() throws Exception {
+        super.setUp();
+        stored = new IslandLevels("island1");
+        stored.setLevel(42);
+        when(handler.objectExists("island1")).thenReturn(true);
+        when(handler.loadObject("island1")).thenReturn(stored);
+        cache = new IslandLevelsCache(addon, handler);
+    }
+
+    @Override
+    @AfterEach
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private Runnable asyncTask() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(sch).runTaskAsynchronously(eq(plugin), task.capture());
+        return task.getValue();
+    }
+
+    @Test
+    void testGetLoadsOnce() {
+        assertSame(stored, cache.get("island1"));
+        assertSame(stored, cache.get("island1"));
+        verify(handler, times(1)).loadObject("island1");
+    }
+
+    @Test
+    void testGetMissingOrBroken() {
+        IslandLevels ld = cache.get("island2");
+        assertEquals("island2", ld.getUniqueId());
+        verify(handler, never()).loadObject("island2");
+        // Exists but cannot be loaded
+        when(handler.objectExists("island3")).thenReturn(true);
+        assertEquals("island3", cache.get("island3").getUniqueId());
+        verify(handler).deleteID("island3");
+    }
+
+    @Test
+    void testGetAsync() {
+        CompletableFuture<IslandLevels> future = cache.getAsync("island1");
+        CompletableFuture<IslandLevels> second = cache.getAsync("island1");
+        assertSame(future, second);
+        assertFalse(future.isDone());
+        verify(handler, never()).loadObject(anyString());
+        // A load on another thread completes the waiting future
+        assertSame(stored, cache.get("island1"));
+        assertTrue(future.isDone());
+        assertSame(stored, future.join());
+        // Cached now
+        assertSame(stored, cache.getAsync("island1").join());
+        verify(handler, times(1)).loadObject("island1");
+    }
+
+    @Test
+    void testGetIfLoaded() {
+        assertNull(cache.getIfLoaded("island1"));
+        asyncTask().run();
+        assertSame(stored, cache.getIfLoaded("island1"));
+        verify(handler, times(1)).loadObject("island1");
+    }
+
+    @Test
+    void testPrefetch() {
+        cache.get("island2");
+        cache.prefetch(List.of("island1", "island2"));
+        assertFalse(cache.contains("island1"));
+        asyncTask().run();
+        assertTrue(cache.contains("island1"));
+        verify(handler, times(1)).objectExists("island2");
+        // Nothing to load
+        cache.prefetch(List.of("island1", "island2"));
+        verify(sch, times(1)).runTaskAsynchronously(eq(plugin), any(Runnable.class));
+    }
+
+    @Test
+    void testGetOrCreateAndRemove() {
+        IslandLevels ld = cache.getOrCreate("island1");
+        assertEquals(0, ld.getLevel());
+        assertSame(ld, cache.get("island1"));
+        verify(handler, never()).loadObject(anyString());
+        cache.remove("island1");
+        assertNull(cache.getCached("island1"));
+        assertSame(stored, cache.get("island1"));
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        // Empty islands weigh 256 bytes each
+        cache = new IslandLevelsCache(addon, handler, 600, 0);
+        cache.get("island1");
+        cache.get("island2");
+        cache.get("island3");
+        // Use island1 again so island2 is the oldest
+        cache.get("island1");
+        assertEquals(1, cache.evict(Set.of()));
+        assertFalse(cache.contains("island2"));
+        assertTrue(cache.contains("island1"));
+        assertTrue(cache.contains("island3"));
+        assertEquals(0, cache.evict(Set.of()));
+    }
+
+    @Test
+    void testEvictKeepsPinned() {
+        cache = new IslandLevelsCache(addon, handler, 300, 0);
+        cache.get("island1");
+        cache.get("island2");
+        cache.get("island3");
+        assertEquals(1, cache.evict(Set.of("island1", "island2")));
+        assertTrue(cache.contains("island1"));
+        assertTrue(cache.contains("island2"));
+        assertFalse(cache.contains("island3"));
+    }
+
+    @Test
+    void testEvictedIslandIsLoadedAgain() {
+        cache = new IslandLevelsCache(addon, handler, 1, 0);
+        cache.get("island1");
+        assertEquals(1, cache.evict(Set.of()));
+        // Not replaced by empty data
+        assertSame(stored, cache.getOrCreate("island1"));
+        verify(handler, times(2)).loadObject("island1");
+    }
+
+    @Test
+    void testNoLimit() {
+        cache.get("island1");
+        cache.get("island2");
+        assertEquals(0, cache.evict(Set.of()));
+        assertTrue(cache.contains("island1"));
+    }
+
+    @Test
+    void testStats() {
+        cache = new IslandLevelsCache(addon, handler, 300, 0);
+        cache.get("island1");
+        cache.get("island1");
+        cache.get("island2");
+        cache.evict(Set.of("island2"));
+        IslandLevelsCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.evictions());
+        assertEquals(1, stats.size());
+        assertEquals(256, stats.weight());
+    }
+
+    @Test
+    void testFlushCoalescesChanges() {
+        IslandLevels ld = cache.get("island1");
+        cache.markDirty("island1");
+        cache.markDirty("island1");
+        cache.markDirty("island1");
+        verify(handler, never()).saveObjectAsync(any());
+        assertEquals(1, cache.getWriteStats().pending());
+        assertEquals(1, cache.flush());
+        verify(handler, times(1)).saveObjectAsync(ld);
+        IslandLevelsCache.WriteStats stats = cache.getWriteStats();
+        assertEquals(0, stats.pending());
+        assertEquals(1, stats.writes());
+        assertEquals(2, stats.coalesced());
+        assertEquals(1, stats.flushes());
+        // Nothing left to save
+        assertEquals(0, cache.flush());
+    }
+
+    @Test
+    void testFlushSkipsDeletedIslands() {
+        cache.get("island1");
+        cache.markDirty("island1");
+        cache.remove("island1");
+        assertEquals(0, cache.flush());
+        verify(handler, never()).saveObjectAsync(any());
+    }
+
+    @Test
+    void testBatchSizeSchedulesFlush() {
+        cache = new IslandLevelsCache(addon, handler, 0, 2);
+        cache.get("island1");
+        cache.get("island2");
+        cache.markDirty("island1");
+        verify(sch, never()).runTask(eq(plugin), any(Runnable.class));
+        cache.markDirty("island2");
+        cache.markDirty("island2");
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(sch, times(1)).runTask(eq(plugin), task.capture());
+        task.getValue().run();
+        verify(handler, times(2)).saveObjectAsync(any());
+    }
+
+    @Test
+    void testChangedIslandsAreNotEvicted() {
+        cache = new IslandLevelsCache(addon, handler, 1, 0);
+        cache.get("island1");
+        cache.markDirty("island1");
+        assertEquals(0, cache.evict(Set.of()));
+        cache.flush();
+        assertEquals(1, cache.evict(Set.of()));
+    }
+}
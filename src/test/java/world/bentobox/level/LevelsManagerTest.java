@@ -2,27 +2,38 @@ package world.bentobox.level;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.plugin.Plugin;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,8 +53,14 @@ import world.bentobox.bentobox.database.DatabaseSetup.DatabaseType;
 import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.bentobox.managers.PlayersManager;
 import world.bentobox.level.calculators.Pipeliner;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 import world.bentobox.level.calculators.Results;
+import world.bentobox.level.calculators.Results.Result;
+import world.bentobox.level.config.BlockConfig;
+import world.bentobox.level.config.BlockValueTable;
 import world.bentobox.level.config.ConfigSettings;
+import world.bentobox.level.events.IslandLevelCalculatedEvent;
+import world.bentobox.level.objects.IslandLevelSummary;
 import world.bentobox.level.objects.IslandLevels;
 import world.bentobox.level.objects.TopTenData;
 
@@ -56,6 +73,8 @@ class LevelsManagerTest extends CommonTestSetup {
     @Mock
     private AbstractDatabaseHandler<Object> handler;
     @Mock
+    private AbstractDatabaseHandler<IslandLevelSummary> summaryHandler;
+    @Mock
     private Settings pluginSettings;
 
     // Class under test
@@ -93,6 +112,7 @@ class LevelsManagerTest extends CommonTestSetup {
         DatabaseSetup dbSetup = mock(DatabaseSetup.class);
         mockedDatabaseSetup.when(() -> DatabaseSetup.getDatabase()).thenReturn(dbSetup);
         when(dbSetup.getHandler(any())).thenReturn(handler);
+        when(dbSetup.getHandler(IslandLevelSummary.class)).thenReturn(summaryHandler);
         when(addon.getPlugin()).thenReturn(plugin);
 
         // The database type has to be created one line before the thenReturn() to work!
@@ -103,7 +123,7 @@ class LevelsManagerTest extends CommonTestSetup {
         // Pipeliner
         when(addon.getPipeliner()).thenReturn(pipeliner);
         cf = new CompletableFuture<>();
-        when(pipeliner.addIsland(any())).thenReturn(cf);
+        when(pipeliner.addIsland(any(), any())).thenReturn(cf);
 
         // Island
         ImmutableSet<UUID> iset = ImmutableSet.of(uuid);
@@ -168,6 +188,14 @@ class LevelsManagerTest extends CommonTestSetup {
         when(levelsData.getInitialCount()).thenReturn(null);
         when(levelsData.getUniqueId()).thenReturn(uuid.toString());
         when(handler.loadObject(anyString())).thenReturn(levelsData );
+        // The same island levels loaded one by one
+        Set<String> ids = new HashSet<>();
+        for (Object o : islands) {
+            IslandLevels il = (IslandLevels) o;
+            ids.add(il.getUniqueId());
+            when(handler.loadObject(il.getUniqueId())).thenReturn(il);
+        }
+        when(im.getAllIslandIds()).thenReturn(ids);
 
 
         // Inventory GUI
@@ -221,6 +249,83 @@ class LevelsManagerTest extends CommonTestSetup {
 
     }
 
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#calculateLevel(UUID, world.bentobox.bentobox.database.objects.Island)}.
+     */
+    @Test
+    void testCalculateLevelSameScanHandledOnce() {
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        Results results = new Results();
+        results.setLevel(100);
+        CompletableFuture<Results> first = lm.calculateLevel(uuid, island);
+        CompletableFuture<Results> second = lm.calculateLevel(uuid, island);
+        // One caller completing its own future does not complete the other's
+        first.complete(null);
+        assertFalse(second.isDone());
+        cf.complete(results);
+        assertSame(results, second.join());
+        ArgumentCaptor<Event> events = ArgumentCaptor.forClass(Event.class);
+        verify(pim, atLeastOnce()).callEvent(events.capture());
+        assertEquals(1, events.getAllValues().stream().filter(IslandLevelCalculatedEvent.class::isInstance).count());
+        assertEquals(100L, ld.getLevel());
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#calculateLevel(UUID, world.bentobox.bentobox.database.objects.Island)}.
+     */
+    @Test
+    void testCalculateLevelNoResults() {
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        ld.setLevel(5);
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        CompletableFuture<Results> r = lm.calculateLevel(uuid, island);
+        cf.complete(null);
+        assertNull(r.join());
+        assertEquals(5L, ld.getLevel());
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#calculateLevel(UUID, world.bentobox.bentobox.database.objects.Island)}.
+     */
+    @Test
+    void testCalculateLevelEventCancelled() {
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        ld.setLevel(5);
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof IslandLevelCalculatedEvent e) {
+                e.setCancelled(true);
+            }
+            return null;
+        }).when(pim).callEvent(any());
+        Results results = new Results();
+        results.setLevel(100);
+        CompletableFuture<Results> r = lm.calculateLevel(uuid, island);
+        cf.complete(results);
+        assertNull(r.join());
+        assertEquals(5L, ld.getLevel());
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#calculateLevel(UUID, world.bentobox.bentobox.database.objects.Island)}.
+     */
+    @Test
+    void testCalculateLevelTimeout() {
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        ld.setLevel(5);
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        Results timeout = new Results(Result.TIMEOUT);
+        CompletableFuture<Results> r = lm.calculateLevel(uuid, island);
+        cf.complete(timeout);
+        assertSame(timeout, r.join());
+        assertEquals(5L, ld.getLevel());
+    }
+
     /**
      * Test method for
      * {@link world.bentobox.level.LevelsManager#getInitialCount(world.bentobox.bentobox.database.objects.Island)}.
@@ -345,6 +450,83 @@ class LevelsManagerTest extends CommonTestSetup {
 
     }
 
+    /**
+     * Test method for {@link world.bentobox.level.LevelsManager#loadTopTens()}
+     * when there are island summaries.
+     */
+    @Test
+    void testLoadTopTensFromSummaries() {
+        IslandLevelSummary summary = new IslandLevelSummary("island1");
+        summary.update("bskyblock-world", 900L, 3, uuid);
+        IslandLevelSummary unranked = new IslandLevelSummary("island2");
+        unranked.update("bskyblock-world", 0L, 1, uuid);
+        when(summaryHandler.loadObjects()).thenReturn(List.of(summary, unranked));
+        mockedBukkit.when(() -> Bukkit.getWorld("bskyblock-world")).thenReturn(world);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        lm.loadTopTens();
+        verify(sch).runTaskAsynchronously(eq(plugin), task.capture());
+        task.getValue().run();
+        // Full level data is not loaded
+        verify(handler, never()).loadObjects();
+        TopTenData data = lm.getTopTenData(world);
+        assertEquals(Map.of("island1", 900L), data.getTopTen());
+        assertEquals(300L, data.getWeightedTopTen().get("island1"));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.level.LevelsManager#loadTopTens()}
+     * when islands have been deleted or changed owner since their summaries were saved.
+     */
+    @Test
+    void testLoadTopTensFromStaleSummaries() {
+        IslandLevelSummary deleted = new IslandLevelSummary("deleted");
+        deleted.update("bskyblock-world", 900L, 1, uuid);
+        IslandLevelSummary gone = new IslandLevelSummary("gone");
+        gone.update("bskyblock-world", 800L, 1, uuid);
+        IslandLevelSummary moved = new IslandLevelSummary("moved");
+        moved.update("bskyblock-world", 700L, 1, uuid);
+        when(summaryHandler.loadObjects()).thenReturn(List.of(deleted, gone, moved));
+        mockedBukkit.when(() -> Bukkit.getWorld("bskyblock-world")).thenReturn(world);
+        Island deletedIsland = mock(Island.class);
+        when(deletedIsland.isDeleted()).thenReturn(true);
+        when(im.getIslandById("deleted")).thenReturn(Optional.of(deletedIsland));
+        when(im.getIslandById("gone")).thenReturn(Optional.empty());
+        UUID newOwner = UUID.randomUUID();
+        Island movedIsland = mock(Island.class);
+        when(movedIsland.getUniqueId()).thenReturn("moved");
+        when(movedIsland.getOwner()).thenReturn(newOwner);
+        when(movedIsland.getWorld()).thenReturn(world);
+        when(movedIsland.getMemberSet()).thenReturn(ImmutableSet.of(newOwner, uuid));
+        when(im.getIslandById("moved")).thenReturn(Optional.of(movedIsland));
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        lm.loadTopTens();
+        verify(sch).runTaskAsynchronously(eq(plugin), task.capture());
+        task.getValue().run();
+        // Only the island that still exists is ranked, with its current team
+        TopTenData data = lm.getTopTenData(world);
+        assertEquals(Map.of("moved", 700L), data.getTopTen());
+        assertEquals(350L, data.getWeightedTopTen().get("moved"));
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#saveLevels()}
+     */
+    @Test
+    void testSaveLevelsSavesSummaries() throws Exception {
+        lm.setIslandLevel(world, uuid, 1234);
+        verify(summaryHandler, never()).saveObject(any());
+        lm.saveLevels();
+        ArgumentCaptor<IslandLevelSummary> saved = ArgumentCaptor.forClass(IslandLevelSummary.class);
+        verify(summaryHandler).saveObject(saved.capture());
+        assertEquals(uuid.toString(), saved.getValue().getUniqueId());
+        assertEquals(1234L, saved.getValue().getLevel());
+        assertEquals(1, saved.getValue().getMembers());
+        // Nothing changed since
+        lm.saveLevels();
+        verify(summaryHandler).saveObject(any());
+    }
+
     /**
      * Test method for
      * {@link world.bentobox.level.LevelsManager#removeEntry(org.bukkit.World, java.util.UUID)}.
@@ -387,7 +569,7 @@ class LevelsManagerTest extends CommonTestSetup {
      */
     @Test
     void testGetTopTenSortOrder() {
-        lm.createAndCleanRankings(world);
+        lm.getTopTenData(world);
         Map<World, TopTenData> ttl = lm.getTopTenLists();
         Map<String, Long> tt = ttl.get(world).getTopTen();
         // Add islands in non-sorted order, mimicking the reported issue
@@ -423,7 +605,7 @@ class LevelsManagerTest extends CommonTestSetup {
      */
     @Test
     void testGetRank() {
-        lm.createAndCleanRankings(world);
+        lm.getTopTenData(world);
         Map<World, TopTenData> ttl = lm.getTopTenLists();
         Map<String, Long> tt = ttl.get(world).getTopTen();
         for (long i = 100; i < 150; i++) {
@@ -439,4 +621,143 @@ class LevelsManagerTest extends CommonTestSetup {
         assertEquals(52, lm.getRank(world, UUID.randomUUID()));
     }
 
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#updateTopTenPermission(UUID)}
+     */
+    @Test
+    void testUpdateTopTenPermission() {
+        when(im.getIslands(world, uuid)).thenReturn(List.of(island));
+        lm.setIslandLevel(world, uuid, 1234);
+        assertEquals(1234L, lm.getTopTen(world, Level.TEN).get(uuid.toString()));
+        // Owner is online without the permission
+        mockedBukkit.when(() -> Bukkit.getPlayer(uuid)).thenReturn(player);
+        when(player.hasPermission(anyString())).thenReturn(false);
+        lm.updateTopTenPermission(uuid);
+        assertTrue(lm.getTopTen(world, Level.TEN).isEmpty());
+        assertEquals(1, lm.getRank(world, uuid));
+        // Permission given back
+        when(player.hasPermission(anyString())).thenReturn(true);
+        lm.updateTopTenPermission(uuid);
+        assertEquals(1234L, lm.getTopTen(world, Level.TEN).get(uuid.toString()));
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#updateTopTenPermission(UUID)}
+     */
+    @Test
+    void testUpdateTopTenPermissionIslandNotLoaded() {
+        // Make the world's rankings without caching the island
+        lm.getTopTenData(world);
+        when(im.getIslands(world, uuid)).thenReturn(List.of(island));
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        ld.setLevel(1234);
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        List<Runnable> asyncTasks = new ArrayList<>();
+        when(sch.runTaskAsynchronously(any(Plugin.class), any(Runnable.class))).thenAnswer(invocation -> {
+            asyncTasks.add(invocation.getArgument(1, Runnable.class));
+            return null;
+        });
+        when(sch.runTask(any(Plugin.class), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.getArgument(1, Runnable.class).run();
+            return null;
+        });
+        lm.updateTopTenPermission(uuid);
+        // Nothing is loaded on this thread
+        verify(handler, never()).loadObject(uuid.toString());
+        assertFalse(lm.getTopTen(world, Level.TEN).containsKey(uuid.toString()));
+        asyncTasks.forEach(Runnable::run);
+        assertEquals(1234L, lm.getTopTen(world, Level.TEN).get(uuid.toString()));
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#updateWeightedLevel(Island)}
+     */
+    @Test
+    void testUpdateWeightedLevel() {
+        lm.setIslandLevel(world, uuid, 1000);
+        Map<Island, Long> weighted = lm.getWeightedTopTen(world, Level.TEN);
+        assertEquals(1000L, weighted.get(island));
+        // Same snapshot is served while nothing changes
+        assertSame(weighted, lm.getWeightedTopTen(world, Level.TEN));
+        // Team grows
+        when(island.getMemberSet()).thenReturn(ImmutableSet.of(uuid, UUID.randomUUID()));
+        lm.updateWeightedLevel(island);
+        assertEquals(500L, lm.getWeightedTopTen(world, Level.TEN).get(island));
+        // Raw level is not weighted
+        assertEquals(1000L, lm.getTopTen(world, Level.TEN).get(uuid.toString()));
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#recalculateAfterDonation(Island)}
+     */
+    @Test
+    void testRecalculateAfterDonationWithoutScan() {
+        BlockConfig blockConfig = mock(BlockConfig.class);
+        when(addon.getBlockConfig()).thenReturn(blockConfig);
+        when(blockConfig.getValue(world, "stone")).thenReturn(10);
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        ld.setInitialCount(0L);
+        ld.setMdCount(new HashMap<>(Map.of(Material.STONE, 95)));
+        ld.setTotalPoints(950);
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        lm.donateBlocks(island, uuid, "STONE", 10, 100);
+        assertEquals(1050L, ld.getTotalPoints());
+        lm.recalculateAfterDonation(island);
+        verify(pipeliner, never()).addIsland(any(), any());
+        assertEquals(10L, ld.getLevel());
+        assertEquals(10L, lm.getTopTen(world, Level.TEN).get(uuid.toString()));
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#recalculateAfterDonation(Island)}
+     */
+    @Test
+    void testRecalculateAfterDonationNeverScanned() {
+        BlockConfig blockConfig = mock(BlockConfig.class);
+        when(addon.getBlockConfig()).thenReturn(blockConfig);
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        lm.donateBlocks(island, uuid, "STONE", 10, 100);
+        // Blocks on the island are not counted yet, so it has to be scanned
+        assertEquals(0L, ld.getTotalPoints());
+        lm.recalculateAfterDonation(island);
+        verify(pipeliner).addIsland(island, Priority.PLAYER);
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#applyBlockChange(Island, Object, boolean, int)}
+     */
+    @Test
+    void testApplyBlockChangeDoesNotLoadIsland() {
+        settings.setLiveTracking(true);
+        lm.applyBlockChange(island, Material.STONE, false, 1);
+        // The island is not cached, so the change is left to the reconciliation scan
+        verify(handler, never()).loadObject(uuid.toString());
+    }
+
+    /**
+     * Test method for
+     * {@link world.bentobox.level.LevelsManager#applyBlockChange(Island, Object, boolean, int)}
+     */
+    @Test
+    void testApplyBlockChangeLoadedIsland() {
+        BlockConfig blockConfig = mock(BlockConfig.class);
+        when(addon.getBlockConfig()).thenReturn(blockConfig);
+        BlockValueTable table = mock(BlockValueTable.class);
+        when(table.value(any())).thenReturn(BlockValueTable.UNSET);
+        when(blockConfig.getValueTable(world)).thenReturn(table);
+        settings.setLiveTracking(true);
+        IslandLevels ld = new IslandLevels(uuid.toString());
+        ld.setMdCount(new HashMap<>(Map.of(Material.DIRT, 5)));
+        when(handler.loadObject(uuid.toString())).thenReturn(ld);
+        lm.getLevelsData(island);
+        lm.applyBlockChange(island, Material.STONE, false, 2);
+        assertEquals(2, ld.getMdCount().get(Material.STONE));
+    }
 }
@@ -140,7 +140,7 @@ class PlaceholderManagerTest extends CommonTestSetup {
 
         data = new IslandLevels("uniqueId");
         data.setTotalPoints(12345678);
-        when(lm.getLevelsData(island)).thenReturn(data);
+        when(lm.getLevelsDataIfLoaded(island)).thenReturn(data);
         when(addon.getManager()).thenReturn(lm);
 
         phm = new PlaceholderManager(addon);
@@ -174,6 +174,7 @@ class PlaceholderManagerTest extends CommonTestSetup {
         verify(bpm).registerPlaceholder(eq(addon), eq("aoneblock_island_total_points"), any());
 
         verify(bpm).registerPlaceholder(eq(addon), eq("aoneblock_points_to_next_level"), any());
+        verify(bpm).registerPlaceholder(eq(addon), eq("aoneblock_island_points_for_next_level"), any());
         verify(bpm).registerPlaceholder(eq(addon), eq("aoneblock_island_level_max"), any());
 
         // Visited Island Level
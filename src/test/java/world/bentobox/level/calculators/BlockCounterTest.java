@@ -0,0 +1,158 @@
+package world.bentobox.level.calculators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+/**
+ * Tests for {@link BlockCounter}
+ */
+class BlockCounterTest {
+
+    private BlockCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        counter = new BlockCounter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void testEmpty() {
+        assertTrue(counter.isEmpty());
+        assertEquals(0L, counter.size());
+        assertEquals(0, counter.count(Material.STONE));
+        assertEquals(0, counter.count(EntityType.ZOMBIE));
+        assertEquals(0, counter.count("oraxen:thing"));
+        assertTrue(counter.toMap().isEmpty());
+    }
+
+    @Test
+    void testAddMaterial() {
+        counter.add(Material.STONE);
+        counter.add(Material.STONE);
+        counter.add((Object) Material.DIRT, 4);
+        assertEquals(2, counter.count(Material.STONE));
+        assertEquals(4, counter.count(Material.DIRT));
+        assertEquals(6L, counter.size());
+    }
+
+    @Test
+    void testAddEntityTypeAndCustom() {
+        counter.add(EntityType.ZOMBIE);
+        counter.add("oraxen:thing", 3);
+        assertEquals(1, counter.count(EntityType.ZOMBIE));
+        assertEquals(3, counter.count("oraxen:thing"));
+        assertEquals(4L, counter.size());
+    }
+
+    @Test
+    void testAddUnsupportedKey() {
+        Integer key = 7;
+        assertThrows(IllegalArgumentException.class, () -> counter.add(key));
+    }
+
+    @Test
+    void testAddAll() {
+        counter.add(Material.STONE, 2);
+        counter.add(EntityType.ZOMBIE);
+        BlockCounter other = new BlockCounter();
+        other.add(Material.STONE, 3);
+        other.add(EntityType.SKELETON);
+        other.add("nexo:chair");
+        counter.addAll(other);
+        assertEquals(5, counter.count(Material.STONE));
+        assertEquals(1, counter.count(EntityType.ZOMBIE));
+        assertEquals(1, counter.count(EntityType.SKELETON));
+        assertEquals(1, counter.count("nexo:chair"));
+        assertEquals(8L, counter.size());
+    }
+
+    @Test
+    void testToMap() {
+        counter.add(Material.STONE, 2);
+        counter.add(EntityType.ZOMBIE, 1);
+        counter.add("nexo:chair", 5);
+        Map<Object, Integer> map = counter.toMap();
+        assertEquals(3, map.size());
+        assertEquals(2, map.get(Material.STONE));
+        assertEquals(1, map.get(EntityType.ZOMBIE));
+        assertEquals(5, map.get("nexo:chair"));
+    }
+
+    @Test
+    void testEntriesByCount() {
+        counter.add(Material.STONE, 2);
+        counter.add(Material.DIRT, 10);
+        counter.add("nexo:chair", 5);
+        List<Map.Entry<Object, Integer>> entries = counter.entriesByCount();
+        assertEquals(Material.DIRT, entries.get(0).getKey());
+        assertEquals("nexo:chair", entries.get(1).getKey());
+        assertEquals(Material.STONE, entries.get(2).getKey());
+    }
+
+    @Test
+    void testAsMultiset() {
+        Multiset<Object> multiset = counter.asMultiset();
+        multiset.add(Material.STONE, 3);
+        multiset.add("nexo:chair");
+        // Changes go to the counter
+        assertEquals(3, counter.count(Material.STONE));
+        assertEquals(1, counter.count("nexo:chair"));
+        assertEquals(4, multiset.size());
+        assertEquals(Set.of(Material.STONE, "nexo:chair"), multiset.elementSet());
+        assertEquals(3, multiset.remove(Material.STONE, 5));
+        assertEquals(0, counter.count(Material.STONE));
+        assertEquals(1, multiset.setCount("nexo:chair", 0));
+        assertTrue(counter.isEmpty());
+        assertEquals(Map.of(), counter.toMap());
+    }
+
+    @Test
+    void testAsMultisetEqualsHashMultiset() {
+        counter.add(Material.STONE, 2);
+        counter.add(EntityType.ZOMBIE, 1);
+        Multiset<Object> expected = HashMultiset.create();
+        expected.add(Material.STONE, 2);
+        expected.add(EntityType.ZOMBIE);
+        assertEquals(expected, counter.asMultiset());
+        assertEquals(expected.hashCode(), counter.asMultiset().hashCode());
+        assertEquals(3, counter.asMultiset().stream().count());
+    }
+
+    @Test
+    void testAsMultisetIterator() {
+        counter.add(Material.STONE, 2);
+        counter.add("nexo:chair");
+        Iterator<Object> it = counter.asMultiset().iterator();
+        List<Object> elements = new ArrayList<>();
+        it.forEachRemaining(elements::add);
+        assertEquals(List.of(Material.STONE, Material.STONE, "nexo:chair"), elements);
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+        assertFalse(new BlockCounter().asMultiset().iterator().hasNext());
+    }
+}
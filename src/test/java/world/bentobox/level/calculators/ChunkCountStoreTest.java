@@ -0,0 +1,124 @@
+package world.bentobox.level.calculators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.level.calculators.ChunkCountStore.ChunkCounts;
+import world.bentobox.level.calculators.ChunkCountStore.Pending;
+
+/**
+ * Tests for {@link ChunkCountStore}
+ */
+class ChunkCountStoreTest {
+
+    private ChunkCountStore store;
+    private World world;
+    private Island island;
+
+    @BeforeEach
+    void setUp() {
+        store = new ChunkCountStore();
+        world = mock(World.class);
+        island = mock(Island.class);
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island.getProtectionRange()).thenReturn(50);
+    }
+
+    private ChunkCounts counts(String islandId) {
+        return new ChunkCounts(islandId, ChunkCountStore.bounds(island), new Object[] { "nexo:chair" },
+                new int[] { 2 }, new Object[0], new int[0], Map.of(), List.of(), false, false, false);
+    }
+
+    @Test
+    void testStoreAndGet() {
+        Pending pending = store.startScan(world, 1, -2);
+        assertNull(store.get(world, 1, -2, island));
+        store.put(world, 1, -2, pending, counts("island1"));
+        assertNotNull(store.get(world, 1, -2, island));
+        assertNull(store.get(world, -2, 1, island));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testInvalidate() {
+        store.put(world, 1, 1, store.startScan(world, 1, 1), counts("island1"));
+        store.invalidate(world, 1, 1);
+        assertNull(store.get(world, 1, 1, island));
+    }
+
+    @Test
+    void testChangeDuringScanIsNotStored() {
+        Pending pending = store.startScan(world, 3, 3);
+        // A block changes after the snapshot was taken
+        store.invalidate(world, 3, 3);
+        store.put(world, 3, 3, pending, counts("island1"));
+        assertNull(store.get(world, 3, 3, island));
+    }
+
+    @Test
+    void testStackedCountsAreNotStored() {
+        Pending pending = store.startScan(world, 4, 4);
+        store.put(world, 4, 4, pending, new ChunkCounts("island1", ChunkCountStore.bounds(island),
+                new Object[] { Material.DIAMOND_BLOCK }, new int[] { 64 }, new Object[0], new int[0], Map.of(),
+                List.of(), false, false, true));
+        assertNull(store.get(world, 4, 4, island));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testOtherIslandOrBounds() {
+        store.put(world, 0, 0, store.startScan(world, 0, 0), counts("island2"));
+        assertNull(store.get(world, 0, 0, island));
+        store.put(world, 0, 0, store.startScan(world, 0, 0), counts("island1"));
+        // Protection range changes
+        when(island.getProtectionRange()).thenReturn(100);
+        assertNull(store.get(world, 0, 0, island));
+    }
+
+    @Test
+    void testRemoveIsland() {
+        store.put(world, 0, 0, store.startScan(world, 0, 0), counts("island1"));
+        store.put(world, 5, 0, store.startScan(world, 5, 0), counts("island2"));
+        store.removeIsland("island1");
+        assertNull(store.get(world, 0, 0, island));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIslandIsDropped() {
+        store = new ChunkCountStore(2);
+        Island island2 = mock(Island.class);
+        when(island2.getUniqueId()).thenReturn("island2");
+        when(island2.getProtectionRange()).thenReturn(50);
+        store.put(world, 0, 0, store.startScan(world, 0, 0), counts("island1"));
+        store.put(world, 1, 0, store.startScan(world, 1, 0), counts("island1"));
+        store.put(world, 5, 0, store.startScan(world, 5, 0), counts("island2"));
+        // island1 is used again, so island2 is the least recently used
+        assertNotNull(store.get(world, 0, 0, island));
+        store.put(world, 9, 0, store.startScan(world, 9, 0), counts("island3"));
+        assertNull(store.get(world, 5, 0, island2));
+        assertNotNull(store.get(world, 0, 0, island));
+        assertNotNull(store.get(world, 1, 0, island));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void testNoLimit() {
+        for (int i = 0; i < 100; i++) {
+            store.put(world, i, 0, store.startScan(world, i, 0), counts("island" + i));
+        }
+        assertEquals(100, store.size());
+    }
+}
@@ -0,0 +1,182 @@
+package world.bentobox.level.calculators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import world.bentobox.bentobox.Settings;
+import world.bentobox.bentobox.database.AbstractDatabaseHandler;
+import world.bentobox.bentobox.database.DatabaseSetup;
+import world.bentobox.bentobox.database.DatabaseSetup.DatabaseType;
+import world.bentobox.level.CommonTestSetup;
+import world.bentobox.level.calculators.ChunkCountStore.ChunkCounts;
+import world.bentobox.level.calculators.IslandLevelCalculator.ChunkRef;
+import world.bentobox.level.objects.IslandChunkCounts;
+import world.bentobox.level.objects.IslandChunkCounts.ChunkEntry;
+
+/**
+ * Tests for {@link ChunkFingerprintCache}
+ */
+class ChunkFingerprintCacheTest extends CommonTestSetup {
+
+    @Mock
+    private AbstractDatabaseHandler<Object> handler;
+    @Mock
+    private Settings pluginSettings;
+    private MockedStatic<DatabaseSetup> mockedDatabaseSetup;
+    private final List<Runnable> asyncTasks = new ArrayList<>();
+    private ChunkFingerprintCache cache;
+    private ChunkRef ref;
+
+    @Override
+    @BeforeEach
+    protected void setUp() throws Exception {
+        super.setUp();
+        mockedDatabaseSetup = Mockito.mockStatic(DatabaseSetup.class);
+        DatabaseSetup dbSetup = mock(DatabaseSetup.class);
+        mockedDatabaseSetup.when(DatabaseSetup::getDatabase).thenReturn(dbSetup);
+        when(dbSetup.getHandler(any())).thenReturn(handler);
+        when(addon.getPlugin()).thenReturn(plugin);
+        when(plugin.getSettings()).thenReturn(pluginSettings);
+        DatabaseType value = DatabaseType.JSON;
+        when(pluginSettings.getDatabaseType()).thenReturn(value);
+
+        // Async tasks are held until the test runs them. Main thread tasks run straight away.
+        when(sch.runTaskAsynchronously(any(Plugin.class), any(Runnable.class))).thenAnswer(invocation -> {
+            asyncTasks.add(invocation.getArgument(1, Runnable.class));
+            return null;
+        });
+        when(sch.runTask(any(Plugin.class), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.getArgument(1, Runnable.class).run();
+            return null;
+        });
+
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island.getProtectionRange()).thenReturn(50);
+        World chunkWorld = mock(World.class);
+        when(chunkWorld.getName()).thenReturn("world");
+        ref = new ChunkRef(chunkWorld, 1, 2);
+        cache = new ChunkFingerprintCache(addon);
+    }
+
+    @Override
+    @AfterEach
+    protected void tearDown() throws Exception {
+        mockedDatabaseSetup.close();
+        super.tearDown();
+    }
+
+    private void runAsyncTasks() {
+        List<Runnable> tasks = new ArrayList<>(asyncTasks);
+        asyncTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private ChunkCounts counts() {
+        return new ChunkCounts("island1", ChunkCountStore.bounds(island), new Object[] { Material.STONE },
+                new int[] { 10 }, new Object[0], new int[0], Map.of(), List.of(), true, false, false);
+    }
+
+    @Test
+    void testLoadIsAsync() throws Exception {
+        IslandChunkCounts saved = new IslandChunkCounts("island1");
+        saved.getChunks().put("world,1,2", new ChunkEntry(99L, ChunkFingerprintCache.layout(island, 0),
+                new HashMap<>(Map.of("STONE", 10)), new HashMap<>(), true, false));
+        when(handler.objectExists("island1")).thenReturn(true);
+        when(handler.loadObject("island1")).thenReturn(saved);
+
+        CompletableFuture<Void> loaded = cache.load(island);
+        assertFalse(loaded.isDone());
+        verify(handler, never()).loadObject(anyString());
+        runAsyncTasks();
+        assertTrue(loaded.isDone());
+
+        ChunkCounts counts = cache.get(island, ref, 99L, 0);
+        assertNotNull(counts);
+        assertEquals(Material.STONE, counts.mdKeys()[0]);
+        assertEquals(10, counts.mdCounts()[0]);
+        assertTrue(counts.chests());
+        // The chunk has changed
+        assertNull(cache.get(island, ref, 100L, 0));
+    }
+
+    @Test
+    void testNotLoaded() throws Exception {
+        cache.put(island, ref, 99L, 0, counts());
+        assertNull(cache.get(island, ref, 99L, 0));
+        verify(handler, never()).loadObject(anyString());
+    }
+
+    @Test
+    void testPutAndSave() throws Exception {
+        cache.load(island);
+        runAsyncTasks();
+        cache.put(island, ref, 99L, 0, counts());
+        assertNotNull(cache.get(island, ref, 99L, 0));
+        cache.save(island);
+        verify(handler).saveObject(any());
+    }
+
+    @Test
+    void testStackedCountsAreNotSaved() {
+        cache.load(island);
+        runAsyncTasks();
+        cache.put(island, ref, 99L, 0, counts());
+        // A stack was counted in the chunk the next time it was scanned
+        cache.put(island, ref, 99L, 0, new ChunkCounts("island1", ChunkCountStore.bounds(island),
+                new Object[] { Material.DIAMOND_BLOCK }, new int[] { 64 }, new Object[0], new int[0], Map.of(),
+                List.of(), false, false, true));
+        assertNull(cache.get(island, ref, 99L, 0));
+    }
+
+    @Test
+    void testRemoveIslandIsAsync() {
+        when(handler.objectExists("island1")).thenReturn(true);
+        cache.removeIsland("island1");
+        verify(handler, never()).deleteID(anyString());
+        runAsyncTasks();
+        verify(handler).deleteID("island1");
+    }
+
+    @Test
+    void testChunkEntryRoundTrip() {
+        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        IslandChunkCounts counts = new IslandChunkCounts("island1");
+        counts.getChunks().put("world,1,2",
+                new ChunkEntry(99L, 7L, new HashMap<>(Map.of("STONE", 10)), new HashMap<>(), true, true));
+        ChunkEntry entry = gson.fromJson(gson.toJson(counts), IslandChunkCounts.class).getChunks().get("world,1,2");
+        assertEquals(99L, entry.getFingerprint());
+        assertEquals(7L, entry.getLayout());
+        assertEquals(10, entry.getMdCount().get("STONE"));
+        assertTrue(entry.getUwCount().isEmpty());
+        assertTrue(entry.isChests());
+        assertTrue(entry.isFurniture());
+    }
+}
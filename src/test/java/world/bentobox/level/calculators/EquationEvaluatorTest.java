@@ -1,6 +1,7 @@
 package world.bentobox.level.calculators;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.text.ParseException;
 
@@ -34,4 +35,32 @@ class EquationEvaluatorTest {
                 0.0001D);
     
     }
+
+    /**
+     * Test method for {@link world.bentobox.level.calculators.EquationEvaluator#compile(java.lang.String, java.lang.String...)}.
+     * @throws ParseException
+     */
+    @Test
+    void testCompile() throws ParseException {
+        EquationEvaluator.Expression expression = EquationEvaluator.compile("blocks / level_cost + island_members",
+                "blocks", "level_cost", "island_members");
+        assertEquals(12D, expression.evaluate(new double[] { 1000, 100, 2 }), 0D);
+        assertEquals(-8D, expression.evaluate(new double[] { -1000, 100, 2 }), 0D);
+        // Same results as pasting the values into the formula
+        EquationEvaluator.Expression power = EquationEvaluator.compile("blocks^2 + (blocks)^2", "blocks");
+        assertEquals(EquationEvaluator.eval("-5^2 + (-5)^2"), power.evaluate(new double[] { -5 }), 0D);
+        assertEquals(EquationEvaluator.eval("5^2 + (5)^2"), power.evaluate(new double[] { 5 }), 0D);
+        EquationEvaluator.Expression sqrt = EquationEvaluator.compile("sqrt(blocks)", "blocks");
+        assertEquals(3D, sqrt.evaluate(new double[] { 9 }), 0D);
+        assertEquals(Double.NaN, sqrt.evaluate(new double[] { -9 }), 0D);
+    }
+
+    /**
+     * Test method for {@link world.bentobox.level.calculators.EquationEvaluator#compile(java.lang.String, java.lang.String...)}.
+     */
+    @Test
+    void testCompileUnknownName() {
+        assertThrows(ParseException.class, () -> EquationEvaluator.compile("blocks / level_cost", "blocks"));
+        assertThrows(ParseException.class, () -> EquationEvaluator.eval("blocks"));
+    }
 }
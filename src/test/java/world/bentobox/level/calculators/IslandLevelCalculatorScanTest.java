@@ -0,0 +1,310 @@
+package world.bentobox.level.calculators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.PlayersManager;
+import world.bentobox.bentobox.util.Util;
+import world.bentobox.level.CommonTestSetup;
+import world.bentobox.level.LevelsManager;
+import world.bentobox.level.config.BlockConfig;
+import world.bentobox.level.config.BlockValueTable;
+import world.bentobox.level.config.ConfigSettings;
+
+/**
+ * Tests for the chunk scanning in {@link IslandLevelCalculator}. Chunks and their
+ * snapshots are mocks, and scan work runs on the calling thread.
+ */
+class IslandLevelCalculatorScanTest extends CommonTestSetup {
+
+    @Mock
+    private ConfigSettings settings;
+    @Mock
+    private LevelsManager manager;
+    @Mock
+    private BlockConfig blockConfig;
+    @Mock
+    private BlockValueTable table;
+    @Mock
+    private Pipeliner pipeliner;
+    @Mock
+    private BukkitTask task;
+    @Mock
+    private World scanWorld;
+
+    private CompletableFuture<Results> r;
+
+    @BeforeEach
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        when(addon.getSettings()).thenReturn(settings);
+        when(settings.getLevelCalc()).thenReturn("blocks / level_cost");
+        when(settings.getLevelCost()).thenReturn(100L);
+        when(settings.getUnderWaterMultiplier()).thenReturn(1.0);
+        when(settings.getChunksInFlight()).thenReturn(4);
+        when(settings.getCalculationTimeout()).thenReturn(5);
+
+        when(addon.getManager()).thenReturn(manager);
+        when(manager.getDonatedBlocks(any(Island.class))).thenReturn(Collections.emptyMap());
+
+        when(addon.getBlockConfig()).thenReturn(blockConfig);
+        when(blockConfig.getValueTable(any())).thenReturn(table);
+        when(table.value(any())).thenReturn(BlockValueTable.UNSET);
+        when(table.limit(any())).thenReturn(BlockValueTable.UNSET);
+
+        when(addon.getPipeliner()).thenReturn(pipeliner);
+        when(addon.getInitialIslandCount(any(Island.class))).thenReturn(0L);
+        PlayersManager players = mock(PlayersManager.class);
+        when(addon.getPlayers()).thenReturn(players);
+
+        // Pipeliner runs the scans on this thread
+        when(pipeliner.getInProcessQueue()).thenReturn(new HashMap<>());
+        when(pipeliner.getTask()).thenReturn(task);
+        when(pipeliner.getScanExecutor()).thenReturn(MoreExecutors.newDirectExecutorService());
+        when(sch.runTask(any(Plugin.class), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.getArgument(1, Runnable.class).run();
+            return task;
+        });
+        mockedBukkit.when(Bukkit::isPrimaryThread).thenReturn(true);
+
+        // World with two sections
+        mockedUtil.when(() -> Util.getWorld(any())).thenReturn(scanWorld);
+        when(scanWorld.getMinHeight()).thenReturn(0);
+        when(scanWorld.getMaxHeight()).thenReturn(32);
+
+        // Island covering one chunk
+        setProtectionRange(8);
+        when(island.getWorld()).thenReturn(world);
+        Location centre = mock(Location.class);
+        when(centre.toVector()).thenReturn(new Vector(0, 0, 0));
+        when(island.getCenter()).thenReturn(centre);
+        r = new CompletableFuture<>();
+    }
+
+    private void setProtectionRange(int range) {
+        when(island.getProtectionRange()).thenReturn(range);
+        when(island.getMinProtectedX()).thenReturn(0);
+        when(island.getMaxProtectedX()).thenReturn(range * 2);
+        when(island.getMinProtectedZ()).thenReturn(0);
+        when(island.getMaxProtectedZ()).thenReturn(range * 2);
+    }
+
+    private IslandLevelCalculator newCalculator() {
+        return new IslandLevelCalculator(addon, island, r, false);
+    }
+
+    /**
+     * Make a snapshot whose blocks are all one material
+     * @param material - block material
+     * @return snapshot
+     */
+    private ChunkSnapshot snapshotOf(Material material) {
+        ChunkSnapshot snapshot = mock(ChunkSnapshot.class);
+        when(snapshot.getBlockType(anyInt(), anyInt(), anyInt())).thenReturn(material);
+        return snapshot;
+    }
+
+    /**
+     * Load every chunk straight away with the same snapshot
+     * @param snapshot - snapshot of each chunk
+     */
+    private void loadChunks(ChunkSnapshot snapshot) {
+        mockedUtil.when(() -> Util.getChunkAtAsync(any(World.class), anyInt(), anyInt(), anyBoolean()))
+        .thenAnswer(invocation -> {
+            Chunk chunk = mock(Chunk.class);
+            when(chunk.getWorld()).thenReturn(scanWorld);
+            when(chunk.getX()).thenReturn(invocation.getArgument(1, Integer.class));
+            when(chunk.getZ()).thenReturn(invocation.getArgument(2, Integer.class));
+            when(chunk.getChunkSnapshot()).thenReturn(snapshot);
+            return CompletableFuture.completedFuture(chunk);
+        });
+    }
+
+    @Test
+    void testChunksInFlightWindow() {
+        setProtectionRange(24); // 4 x 4 chunks
+        List<CompletableFuture<Chunk>> requested = new ArrayList<>();
+        mockedUtil.when(() -> Util.getChunkAtAsync(any(World.class), anyInt(), anyInt(), anyBoolean()))
+        .thenAnswer(invocation -> {
+            CompletableFuture<Chunk> f = new CompletableFuture<>();
+            requested.add(f);
+            return f;
+        });
+        newCalculator().scanIsland(pipeliner);
+        // Only the window is requested
+        assertEquals(4, requested.size());
+        // Each chunk that is done makes room for one more
+        requested.get(0).complete(null);
+        assertEquals(5, requested.size());
+        for (int i = 1; i < requested.size(); i++) {
+            requested.get(i).complete(null);
+        }
+        assertEquals(16, requested.size());
+        assertTrue(r.isDone());
+        verify(pipeliner).finished(any());
+    }
+
+    @Test
+    void testChunksDoneStraightAwayDoNotRecurse() {
+        setProtectionRange(400); // 51 x 51 chunks
+        List<Integer> depths = new ArrayList<>();
+        mockedUtil.when(() -> Util.getChunkAtAsync(any(World.class), anyInt(), anyInt(), anyBoolean()))
+        .thenAnswer(invocation -> {
+            depths.add(Thread.currentThread().getStackTrace().length);
+            return CompletableFuture.completedFuture(null);
+        });
+        newCalculator().scanIsland(pipeliner);
+        assertEquals(51 * 51, depths.size());
+        assertEquals(Collections.min(depths), Collections.max(depths));
+        assertTrue(r.isDone());
+    }
+
+    @Test
+    void testScanFailureFailsCalculation() {
+        ChunkSnapshot snapshot = mock(ChunkSnapshot.class);
+        when(snapshot.getBlockType(anyInt(), anyInt(), anyInt())).thenThrow(new IllegalStateException("broken"));
+        loadChunks(snapshot);
+        newCalculator().scanIsland(pipeliner);
+        assertTrue(r.isDone());
+        assertNull(r.join());
+        verify(addon).logError(startsWith("Level calculation failed"));
+        verify(pipeliner).finished(any());
+    }
+
+    @Test
+    void testChunkLoadFailureFailsCalculation() {
+        mockedUtil.when(() -> Util.getChunkAtAsync(any(World.class), anyInt(), anyInt(), anyBoolean()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("no chunk")));
+        newCalculator().scanIsland(pipeliner);
+        assertNull(r.join());
+        verify(addon).logError(startsWith("Level calculation failed"));
+    }
+
+    @Test
+    void testScanCountsBlocks() {
+        loadChunks(snapshotOf(Material.STONE));
+        IslandLevelCalculator calc = newCalculator();
+        calc.scanIsland(pipeliner);
+        assertSame(calc.getResults(), r.join());
+        // Only the first chunk has columns inside the island. 16 x 16 columns, 32 high
+        assertEquals(16 * 16 * 32, calc.getResults().getMdCounter().count(Material.STONE));
+        assertFalse(calc.getResults().getReport().isEmpty());
+    }
+
+    @Test
+    void testTalliesFinishingOutOfOrderAreMerged() {
+        setProtectionRange(24); // 3 x 3 chunks inside the island
+        when(iwm.getSeaHeight(any())).thenReturn(7);
+        // Hold the scan jobs so they can be finished newest first
+        Deque<Runnable> jobs = new ArrayDeque<>();
+        ExecutorService workers = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            jobs.push(invocation.getArgument(0, Runnable.class));
+            return null;
+        }).when(workers).execute(any());
+        when(pipeliner.getScanExecutor()).thenReturn(workers);
+        ChunkSnapshot snapshot = mock(ChunkSnapshot.class);
+        when(snapshot.getBlockType(anyInt(), anyInt(), anyInt()))
+        .thenAnswer(invocation -> invocation.getArgument(1, Integer.class) < 16 ? Material.STONE : Material.DIRT);
+        loadChunks(snapshot);
+        newCalculator().scanIsland(pipeliner);
+        // The window is full of jobs
+        assertEquals(4, jobs.size());
+        while (!jobs.isEmpty()) {
+            jobs.pop().run();
+        }
+        assertTrue(r.isDone());
+        Results results = r.join();
+        int columns = 9 * 16 * 16;
+        // Sea level is 7, so y 0 to 7 is under water
+        assertEquals(columns * 8, results.getUwCounter().count(Material.STONE));
+        assertEquals(columns * 8, results.getMdCounter().count(Material.STONE));
+        assertEquals(columns * 16, results.getMdCounter().count(Material.DIRT));
+        assertEquals(columns * 32L, results.getMdCounter().size() + results.getUwCounter().size());
+    }
+
+    @Test
+    void testEmptySectionsCountedAsAir() {
+        when(iwm.getSeaHeight(any())).thenReturn(20);
+        ChunkSnapshot snapshot = snapshotOf(Material.STONE);
+        when(snapshot.isSectionEmpty(1)).thenReturn(true);
+        loadChunks(snapshot);
+        IslandLevelCalculator calc = newCalculator();
+        calc.scanIsland(pipeliner);
+        Results results = r.join();
+        // The empty section's blocks are not looked at
+        verify(snapshot, never()).getBlockType(anyInt(), intThat(y -> y >= 16), anyInt());
+        int columns = 16 * 16;
+        assertEquals(columns * 16, results.getUwCounter().count(Material.STONE));
+        // Sea level is 20, so y 16 to 20 is under water
+        assertEquals(columns * 5, results.getUwCounter().count(Material.AIR));
+        assertEquals(columns * 11, results.getMdCounter().count(Material.AIR));
+        assertEquals(columns * 32L, results.getMdCounter().size() + results.getUwCounter().size());
+    }
+
+    @Test
+    void testEmptySectionsScannedWhenCaveAirHasValue() {
+        when(table.value(Material.CAVE_AIR)).thenReturn(1);
+        ChunkSnapshot snapshot = mock(ChunkSnapshot.class);
+        when(snapshot.isSectionEmpty(1)).thenReturn(true);
+        when(snapshot.getBlockType(anyInt(), anyInt(), anyInt()))
+        .thenAnswer(invocation -> invocation.getArgument(1, Integer.class) < 16 ? Material.STONE : Material.CAVE_AIR);
+        loadChunks(snapshot);
+        IslandLevelCalculator calc = newCalculator();
+        calc.scanIsland(pipeliner);
+        Results results = r.join();
+        assertEquals(16 * 16 * 16, results.getMdCounter().count(Material.CAVE_AIR));
+        assertEquals(0, results.getMdCounter().count(Material.AIR));
+    }
+
+    @Test
+    void testSlabsCountedWithoutBlockData() {
+        ChunkSnapshot snapshot = snapshotOf(Material.STONE_SLAB);
+        loadChunks(snapshot);
+        IslandLevelCalculator calc = newCalculator();
+        calc.scanIsland(pipeliner);
+        Results results = r.join();
+        // Double and single slabs are both one block
+        assertEquals(16 * 16 * 32, results.getMdCounter().count(Material.STONE_SLAB));
+        verify(snapshot, never()).getBlockData(anyInt(), anyInt(), anyInt());
+    }
+}
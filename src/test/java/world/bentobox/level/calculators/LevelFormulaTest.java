@@ -0,0 +1,73 @@
+package world.bentobox.level.calculators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.level.Level;
+import world.bentobox.level.config.ConfigSettings;
+
+/**
+ * Tests for {@link LevelFormula}
+ */
+class LevelFormulaTest {
+
+    private Level addon;
+    private ConfigSettings settings;
+    private Island island;
+
+    @BeforeEach
+    void setUp() {
+        addon = mock(Level.class);
+        settings = mock(ConfigSettings.class);
+        island = mock(Island.class);
+        when(addon.getSettings()).thenReturn(settings);
+        when(settings.getLevelCalc()).thenReturn("blocks / level_cost");
+        when(settings.getLevelCost()).thenReturn(100L);
+        when(island.getMemberSet()).thenReturn(Set.of(UUID.randomUUID()));
+    }
+
+    @Test
+    void testCalculateLevel() {
+        LevelFormula formula = new LevelFormula(addon, island, 0);
+        assertEquals(10L, formula.calculateLevel(1050));
+        assertEquals(50L, formula.getPointsToNextLevel(1050, 10));
+        assertEquals(50L, formula.getPointsFromCurrentLevel(1050, 10));
+    }
+
+    @Test
+    void testInitialCount() {
+        when(settings.isZeroNewIslandLevels()).thenReturn(true);
+        LevelFormula formula = new LevelFormula(addon, island, 1000);
+        assertEquals(0L, formula.calculateLevel(1050));
+        assertEquals(50L, formula.getPointsToNextLevel(1050, 0));
+        assertEquals(50L, formula.getPointsFromCurrentLevel(1050, 0));
+        // Donations-only mode ignores the initial count
+        when(settings.isDonationsOnly()).thenReturn(true);
+        assertEquals(10L, formula.calculateLevel(1050));
+    }
+
+    @Test
+    void testIslandMembers() {
+        when(settings.getLevelCalc()).thenReturn("blocks / level_cost / island_members");
+        when(island.getMemberSet()).thenReturn(Set.of(UUID.randomUUID(), UUID.randomUUID()));
+        LevelFormula formula = new LevelFormula(addon, island, 0);
+        assertEquals(5L, formula.calculateLevel(1050));
+        assertEquals(-5L, formula.calculateLevel(-1050));
+    }
+
+    @Test
+    void testDeathPenalty() {
+        LevelFormula formula = new LevelFormula(addon, island, 0);
+        assertEquals(1050L, formula.applyDeathPenalty(1050, 3));
+        when(settings.getDeathPenalty()).thenReturn(100);
+        assertEquals(750L, formula.applyDeathPenalty(1050, 3));
+    }
+}
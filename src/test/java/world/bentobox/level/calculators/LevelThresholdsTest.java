@@ -0,0 +1,63 @@
+package world.bentobox.level.calculators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.text.ParseException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the level threshold table
+ */
+class LevelThresholdsTest {
+
+    @Test
+    void testGetPoints() throws ParseException {
+        LevelThresholds thresholds = LevelThresholds.get(LevelFormula.compile("blocks / level_cost"), 100, 1);
+        // Level 0 is reached from -99 points because the level is rounded towards zero
+        assertEquals(-99L, thresholds.getPoints(0));
+        assertEquals(100L, thresholds.getPoints(1));
+        assertEquals(1000L, thresholds.getPoints(10));
+        assertEquals(-199L, thresholds.getPoints(-1));
+        assertEquals(LevelThresholds.MAX_LEVELS * 100L, thresholds.getPoints(LevelThresholds.MAX_LEVELS));
+        assertEquals(10L, thresholds.getLevel(1050));
+    }
+
+    @Test
+    void testGetPointsNonLinear() throws ParseException {
+        LevelThresholds thresholds = LevelThresholds.get(LevelFormula.compile("sqrt(blocks) / island_members"), 1, 2);
+        assertEquals(4L, thresholds.getPoints(1));
+        assertEquals(400L, thresholds.getPoints(10));
+        assertEquals(9L, thresholds.getLevel(399));
+    }
+
+    @Test
+    void testUnreachable() throws ParseException {
+        LevelThresholds thresholds = LevelThresholds.get(LevelFormula.compile("sin(blocks) * 0 + 5"), 1, 1);
+        assertEquals(thresholds.getPoints(0), thresholds.getPoints(5));
+        assertEquals(LevelThresholds.UNREACHABLE, thresholds.getPoints(6));
+        assertEquals(LevelThresholds.UNREACHABLE, thresholds.getPoints(100));
+    }
+
+    @Test
+    void testHighLevelFirst() throws ParseException {
+        LevelThresholds thresholds = LevelThresholds.get(LevelFormula.compile("blocks / level_cost"), 100, 1);
+        // A high level is asked for before any lower ones
+        assertEquals(20_000_000L, thresholds.getPoints(200_000));
+        assertEquals(500L, thresholds.getPoints(5));
+        assertEquals(20_000_100L, thresholds.getPoints(200_001));
+    }
+
+    @Test
+    void testTablesDroppedWhenFormulaChanges() throws ParseException {
+        LevelThresholds thresholds = LevelThresholds.get(LevelFormula.compile("blocks / level_cost"), 100, 1);
+        assertSame(thresholds, LevelThresholds.get(LevelFormula.compile("blocks / level_cost"), 100, 1));
+        // The config is reloaded with a new formula
+        LevelThresholds changed = LevelThresholds.get(LevelFormula.compile("blocks / level_cost / 2"), 100, 1);
+        assertEquals(200L, changed.getPoints(1));
+        // Changing it back compiles it again with a new table
+        assertNotSame(thresholds, LevelThresholds.get(LevelFormula.compile("blocks / level_cost"), 100, 1));
+    }
+}
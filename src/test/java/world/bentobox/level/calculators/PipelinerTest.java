@@ -0,0 +1,186 @@
+package world.bentobox.level.calculators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.util.Util;
+import world.bentobox.level.CommonTestSetup;
+import world.bentobox.level.calculators.Pipeliner.Priority;
+import world.bentobox.level.config.BlockConfig;
+import world.bentobox.level.config.BlockValueTable;
+import world.bentobox.level.config.ConfigSettings;
+
+/**
+ * Tests for {@link Pipeliner}. Chunks never finish loading, so a calculation
+ * stays in process until the test finishes it.
+ */
+class PipelinerTest extends CommonTestSetup {
+
+    @Mock
+    private ConfigSettings settings;
+    @Mock
+    private BlockConfig blockConfig;
+    @Mock
+    private BlockValueTable table;
+    @Mock
+    private BukkitTask task;
+
+    private Runnable tick;
+    private Pipeliner pipeliner;
+
+    @BeforeEach
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        when(addon.getSettings()).thenReturn(settings);
+        when(settings.getConcurrentIslandCalcs()).thenReturn(1);
+        when(settings.getScanThreads()).thenReturn(1);
+        when(settings.getChunksInFlight()).thenReturn(4);
+        when(settings.getCalculationTimeout()).thenReturn(5);
+        when(addon.getBlockConfig()).thenReturn(blockConfig);
+        when(blockConfig.getValueTable(any())).thenReturn(table);
+        when(table.value(any())).thenReturn(BlockValueTable.UNSET);
+        when(table.limit(any())).thenReturn(BlockValueTable.UNSET);
+        when(plugin.isEnabled()).thenReturn(true);
+
+        // The queue is checked when the test runs the tick. Main thread tasks run straight away.
+        when(sch.runTaskTimer(any(Plugin.class), any(Runnable.class), anyLong(), anyLong())).thenAnswer(invocation -> {
+            tick = invocation.getArgument(1, Runnable.class);
+            return task;
+        });
+        when(sch.runTask(any(Plugin.class), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.getArgument(1, Runnable.class).run();
+            return task;
+        });
+        mockedUtil.when(() -> Util.getChunkAtAsync(any(World.class), anyInt(), anyInt(), anyBoolean()))
+        .thenAnswer(invocation -> new CompletableFuture<>());
+
+        pipeliner = new Pipeliner(addon);
+    }
+
+    private Island island(String id) {
+        Island is = mock(Island.class);
+        when(is.getUniqueId()).thenReturn(id);
+        when(is.getWorld()).thenReturn(world);
+        when(is.getProtectionRange()).thenReturn(8);
+        when(is.getMaxProtectedX()).thenReturn(16);
+        when(is.getMaxProtectedZ()).thenReturn(16);
+        Location centre = mock(Location.class);
+        when(centre.toVector()).thenReturn(new Vector(0, 0, 0));
+        when(is.getCenter()).thenReturn(centre);
+        return is;
+    }
+
+    private IslandLevelCalculator inProcess() {
+        assertEquals(1, pipeliner.getInProcessQueue().size());
+        return pipeliner.getInProcessQueue().keySet().iterator().next();
+    }
+
+    @Test
+    void testSlotIsRefilledWhenFinished() {
+        Island first = island("first");
+        Island second = island("second");
+        pipeliner.addIsland(first);
+        pipeliner.addIsland(second);
+        tick.run();
+        IslandLevelCalculator calc = inProcess();
+        assertEquals(first, calc.getIsland());
+        assertEquals(1, pipeliner.getIslandsInQueue(Priority.ADMIN));
+        // The next island starts as soon as the first is done, without waiting for the tick
+        pipeliner.finished(calc);
+        assertEquals(second, inProcess().getIsland());
+        assertEquals(0, pipeliner.getIslandsInQueue(Priority.ADMIN));
+    }
+
+    @Test
+    void testFinishedIslandCanBeQueuedAgain() {
+        Island first = island("first");
+        CompletableFuture<Results> r = pipeliner.addIsland(first);
+        tick.run();
+        pipeliner.finished(inProcess());
+        assertTrue(pipeliner.getInProcessQueue().isEmpty());
+        assertNotSame(r, pipeliner.addIsland(first));
+    }
+
+    @Test
+    void testDeletedIslandIsSkipped() {
+        Island deleted = island("deleted");
+        when(deleted.isDeleted()).thenReturn(true);
+        CompletableFuture<Results> r = pipeliner.addIsland(deleted);
+        tick.run();
+        assertTrue(pipeliner.getInProcessQueue().isEmpty());
+        assertNull(r.join());
+    }
+
+    @Test
+    void testStopCompletesWaitingCalculations() {
+        CompletableFuture<Results> first = pipeliner.addIsland(island("first"));
+        CompletableFuture<Results> second = pipeliner.addIsland(island("second"));
+        tick.run();
+        pipeliner.stop();
+        assertNull(first.join());
+        assertNull(second.join());
+        assertEquals(0, pipeliner.getIslandsInQueue());
+        // The scan pool is not created again
+        assertThrows(RejectedExecutionException.class, pipeliner::getScanExecutor);
+    }
+
+    @Test
+    void testSecondAddGetsSameCalculation() {
+        Island first = island("first");
+        CompletableFuture<Results> r = pipeliner.addIsland(first);
+        assertSame(r, pipeliner.addIsland(first));
+        assertEquals(1, pipeliner.getIslandsInQueue(Priority.ADMIN));
+        // Also while it is in process
+        tick.run();
+        assertSame(r, pipeliner.addIsland(first));
+        assertEquals(1, pipeliner.getIslandsInQueue());
+    }
+
+    @Test
+    void testHigherPriorityMovesQueuedCalculation() {
+        Island first = island("first");
+        CompletableFuture<Results> r = pipeliner.addIsland(first, Priority.BACKGROUND);
+        assertSame(r, pipeliner.addIsland(first, Priority.PLAYER));
+        assertEquals(0, pipeliner.getIslandsInQueue(Priority.BACKGROUND));
+        assertEquals(1, pipeliner.getIslandsInQueue(Priority.PLAYER));
+        // A lower priority does not move it back
+        assertSame(r, pipeliner.addIsland(first, Priority.BACKGROUND));
+        assertEquals(0, pipeliner.getIslandsInQueue(Priority.BACKGROUND));
+        assertEquals(1, pipeliner.getIslandsInQueue(Priority.PLAYER));
+    }
+
+    @Test
+    void testPlayerIslandStartsBeforeBackground() {
+        Island background = island("background");
+        Island player = island("player");
+        pipeliner.addIsland(background, Priority.BACKGROUND);
+        pipeliner.addIsland(player, Priority.BACKGROUND);
+        pipeliner.addIsland(player, Priority.PLAYER);
+        tick.run();
+        assertEquals(player, inProcess().getIsland());
+    }
+}
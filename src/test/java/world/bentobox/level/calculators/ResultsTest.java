@@ -166,6 +166,14 @@ class ResultsTest {
         assertEquals(3, results.getUwCount().count(Material.SAND));
     }
 
+    @Test
+    void testMultisetsShareCounters() {
+        results.getMdCount().add(Material.STONE, 5);
+        assertEquals(5, results.getMdCounter().count(Material.STONE));
+        results.getUwCounter().add(Material.SAND, 3);
+        assertEquals(3, results.getUwCount().count(Material.SAND));
+    }
+
     // --- Result enum ---
 
     @Test
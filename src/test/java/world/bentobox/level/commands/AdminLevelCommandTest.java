@@ -25,6 +25,7 @@ import world.bentobox.bentobox.managers.PlayersManager;
 import world.bentobox.level.CommonTestSetup;
 import world.bentobox.level.LevelsManager;
 import world.bentobox.level.calculators.Pipeliner;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 import world.bentobox.level.calculators.Results;
 import world.bentobox.level.calculators.Results.Result;
 import world.bentobox.level.config.ConfigSettings;
@@ -70,7 +71,7 @@ class AdminLevelCommandTest extends CommonTestSetup {
         when(island.getMemberSet()).thenReturn(com.google.common.collect.ImmutableSet.of(uuid));
 
         Results results = new Results(Result.AVAILABLE);
-        when(manager.calculateLevel(any(), any())).thenReturn(CompletableFuture.completedFuture(results));
+        when(manager.calculateLevel(any(), any(), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(results));
         when(manager.getIslandLevelString(any(), any())).thenReturn("5");
         when(settings.isLogReportToConsole()).thenReturn(false);
 
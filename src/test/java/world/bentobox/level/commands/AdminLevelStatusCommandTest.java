@@ -19,7 +19,10 @@ import org.mockito.Mock;
 import world.bentobox.bentobox.api.localization.TextVariables;
 import world.bentobox.bentobox.api.user.User;
 import world.bentobox.level.CommonTestSetup;
+import world.bentobox.level.IslandLevelsCache;
+import world.bentobox.level.LevelsManager;
 import world.bentobox.level.calculators.Pipeliner;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 
 /**
  * Tests for {@link AdminLevelStatusCommand}
@@ -30,6 +33,8 @@ class AdminLevelStatusCommandTest extends CommonTestSetup {
     private User user;
     @Mock
     private Pipeliner pipeliner;
+    @Mock
+    private LevelsManager manager;
 
     private AdminLevelStatusCommand cmd;
 
@@ -38,6 +43,9 @@ class AdminLevelStatusCommandTest extends CommonTestSetup {
     protected void setUp() throws Exception {
         super.setUp();
         when(addon.getPipeliner()).thenReturn(pipeliner);
+        when(addon.getManager()).thenReturn(manager);
+        when(manager.getLevelsCacheStats()).thenReturn(new IslandLevelsCache.Stats(7, 3, 2, 5, 4096));
+        when(manager.getLevelsWriteStats()).thenReturn(new IslandLevelsCache.WriteStats(4, 20, 9, 3));
         when(user.getTranslation(any())).thenAnswer(i -> i.getArgument(0, String.class));
         cmd = new AdminLevelStatusCommand(addon, ic);
     }
@@ -68,4 +76,22 @@ class AdminLevelStatusCommandTest extends CommonTestSetup {
         assertTrue(cmd.execute(user, "levelstatus", Collections.emptyList()));
         verify(user).sendMessage(eq("admin.levelstatus.islands-in-queue"), eq(TextVariables.NUMBER), eq("5"));
     }
+
+    @Test
+    void testExecuteShowsQueueByPriority() {
+        when(pipeliner.getIslandsInQueue(Priority.PLAYER)).thenReturn(1);
+        when(pipeliner.getIslandsInQueue(Priority.BACKGROUND)).thenReturn(30);
+        assertTrue(cmd.execute(user, "levelstatus", Collections.emptyList()));
+        verify(user).sendMessage("admin.levelstatus.queue-by-priority", "[player]", "1", "[admin]", "0", "[zero]",
+                "0", "[background]", "30");
+    }
+
+    @Test
+    void testExecuteShowsCacheAndSaveStats() {
+        assertTrue(cmd.execute(user, "levelstatus", Collections.emptyList()));
+        verify(user).sendMessage("admin.levelstatus.cache", TextVariables.NUMBER, "5", "[size]", "4", "[hits]", "7",
+                "[misses]", "3", "[evictions]", "2");
+        verify(user).sendMessage("admin.levelstatus.saves", TextVariables.NUMBER, "4", "[writes]", "20",
+                "[coalesced]", "9");
+    }
 }
@@ -25,6 +25,7 @@ import world.bentobox.bentobox.managers.PlayersManager;
 import world.bentobox.level.CommonTestSetup;
 import world.bentobox.level.LevelsManager;
 import world.bentobox.level.calculators.Pipeliner;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 import world.bentobox.level.calculators.Results;
 import world.bentobox.level.calculators.Results.Result;
 import world.bentobox.level.config.ConfigSettings;
@@ -118,7 +119,7 @@ class IslandLevelCommandTest extends CommonTestSetup {
     @Test
     void testExecuteSelfWithIslandSendsCalculating() {
         Results results = new Results(Result.AVAILABLE);
-        when(manager.calculateLevel(any(), any())).thenReturn(CompletableFuture.completedFuture(results));
+        when(manager.calculateLevel(any(), any(), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(results));
         when(manager.getIslandLevelString(any(), any())).thenReturn("5");
 
         assertTrue(cmd.execute(user, "level", Collections.emptyList()));
@@ -128,7 +129,7 @@ class IslandLevelCommandTest extends CommonTestSetup {
     @Test
     void testExecuteSelfResultInProgress() {
         Results results = new Results(Result.IN_PROGRESS);
-        when(manager.calculateLevel(any(), any())).thenReturn(CompletableFuture.completedFuture(results));
+        when(manager.calculateLevel(any(), any(), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(results));
 
         cmd.execute(user, "level", Collections.emptyList());
         verify(user).sendMessage("island.level.in-progress");
@@ -137,7 +138,7 @@ class IslandLevelCommandTest extends CommonTestSetup {
     @Test
     void testExecuteSelfResultTimeout() {
         Results results = new Results(Result.TIMEOUT);
-        when(manager.calculateLevel(any(), any())).thenReturn(CompletableFuture.completedFuture(results));
+        when(manager.calculateLevel(any(), any(), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(results));
 
         cmd.execute(user, "level", Collections.emptyList());
         verify(user).sendMessage("island.level.time-out");
@@ -145,7 +146,7 @@ class IslandLevelCommandTest extends CommonTestSetup {
 
     @Test
     void testExecuteSelfNullResultIsIgnored() {
-        when(manager.calculateLevel(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(manager.calculateLevel(any(), any(), any(Priority.class))).thenReturn(CompletableFuture.completedFuture(null));
         // Should not throw
         assertTrue(cmd.execute(user, "level", Collections.emptyList()));
     }
@@ -61,4 +61,16 @@ class BlockConfigLimitsTest extends CommonTestSetup {
         assertNull(blockConfig.getLimit("diamond_block"));
         assertNull(blockConfig.getLimit(Material.DIAMOND_BLOCK));
     }
+
+    @Test
+    @DisplayName("Compiled value table agrees with the limit lookups")
+    void valueTableLimits() {
+        BlockValueTable table = blockConfig.getValueTable(null);
+        assertEquals(100, table.limit(Material.COBBLESTONE));
+        // The table is looked up with lowercase IDs, the same as block values
+        assertEquals(5, table.limit("mycrystal"));
+        assertEquals(7, table.limit("oraxen:my_gem"));
+        assertEquals(BlockValueTable.UNSET, table.limit(Material.DIAMOND_BLOCK));
+        assertEquals(BlockValueTable.UNSET, table.limit("diamond_block"));
+    }
 }
@@ -0,0 +1,80 @@
+package world.bentobox.level.listeners;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Directional;
+import org.bukkit.event.block.BlockDispenseEvent;
+import org.bukkit.event.block.SpongeAbsorbEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import world.bentobox.level.Level;
+import world.bentobox.level.calculators.ChunkCountStore;
+import world.bentobox.level.calculators.Pipeliner;
+
+/**
+ * Tests for {@link ChunkChangeListener}
+ */
+class ChunkChangeListenerTest {
+
+    private ChunkCountStore store;
+    private World world;
+    private ChunkChangeListener listener;
+
+    @BeforeEach
+    void setUp() {
+        Level addon = mock(Level.class);
+        Pipeliner pipeliner = mock(Pipeliner.class);
+        store = mock(ChunkCountStore.class);
+        when(addon.getPipeliner()).thenReturn(pipeliner);
+        when(pipeliner.getChunkCountStore()).thenReturn(store);
+        world = mock(World.class);
+        listener = new ChunkChangeListener(addon);
+    }
+
+    private Block block(int x, int z, BlockData data) {
+        Block block = mock(Block.class);
+        when(block.getWorld()).thenReturn(world);
+        when(block.getX()).thenReturn(x);
+        when(block.getZ()).thenReturn(z);
+        when(block.getBlockData()).thenReturn(data);
+        return block;
+    }
+
+    @Test
+    void testDispenseIntoNextChunk() {
+        Directional facing = mock(Directional.class);
+        when(facing.getFacing()).thenReturn(BlockFace.EAST);
+        Block dispenser = block(15, 0, facing);
+        Block inFront = block(16, 0, null);
+        when(dispenser.getRelative(BlockFace.EAST)).thenReturn(inFront);
+        BlockDispenseEvent e = mock(BlockDispenseEvent.class);
+        when(e.getBlock()).thenReturn(dispenser);
+        listener.onDispense(e);
+        verify(store).invalidate(world, 0, 0);
+        verify(store).invalidate(world, 1, 0);
+    }
+
+    @Test
+    void testSpongeAbsorb() {
+        Block sponge = block(0, 0, null);
+        Block water = block(-1, 40, null);
+        BlockState state = mock(BlockState.class);
+        when(state.getBlock()).thenReturn(water);
+        SpongeAbsorbEvent e = mock(SpongeAbsorbEvent.class);
+        when(e.getBlock()).thenReturn(sponge);
+        when(e.getBlocks()).thenReturn(List.of(state));
+        listener.onSpongeAbsorb(e);
+        verify(store).invalidate(world, 0, 0);
+        verify(store).invalidate(world, -1, 2);
+    }
+}
@@ -14,6 +14,7 @@ import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import world.bentobox.bentobox.api.events.island.IslandCreatedEvent;
@@ -21,6 +22,8 @@ import world.bentobox.bentobox.api.events.island.IslandDeleteEvent;
 import world.bentobox.bentobox.api.events.island.IslandPreclearEvent;
 import world.bentobox.bentobox.api.events.island.IslandResettedEvent;
 import world.bentobox.bentobox.api.events.island.IslandUnregisteredEvent;
+import world.bentobox.bentobox.api.events.team.TeamJoinedEvent;
+import world.bentobox.bentobox.api.events.team.TeamKickEvent;
 import world.bentobox.bentobox.api.events.team.TeamSetownerEvent;
 import world.bentobox.level.CommonTestSetup;
 import world.bentobox.level.LevelsManager;
@@ -149,4 +152,27 @@ class IslandActivitiesListenersTest extends CommonTestSetup {
         listener.onNewIslandOwner(event);
         verify(manager).removeEntry(world, uuid.toString());
     }
+
+    // --- Team changes ---
+
+    @Test
+    void testOnTeamJoinedUpdatesWeightedLevel() {
+        TeamJoinedEvent event = new TeamJoinedEvent(island, UUID.randomUUID(), false, location);
+        listener.onIsland(event);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(sch).runTask(eq(plugin), task.capture());
+        verify(manager, never()).updateWeightedLevel(any());
+        task.getValue().run();
+        verify(manager).updateWeightedLevel(island);
+    }
+
+    @Test
+    void testOnTeamKickUpdatesWeightedLevel() {
+        TeamKickEvent event = new TeamKickEvent(island, UUID.randomUUID(), false, location);
+        listener.onIsland(event);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(sch).runTask(eq(plugin), task.capture());
+        task.getValue().run();
+        verify(manager).updateWeightedLevel(island);
+    }
 }
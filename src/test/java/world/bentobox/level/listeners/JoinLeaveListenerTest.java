@@ -1,6 +1,7 @@
 package world.bentobox.level.listeners;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -12,9 +13,11 @@ import java.util.UUID;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import world.bentobox.bentobox.api.addons.GameModeAddon;
@@ -22,6 +25,7 @@ import world.bentobox.bentobox.api.addons.AddonDescription;
 import world.bentobox.bentobox.managers.AddonsManager;
 import world.bentobox.level.CommonTestSetup;
 import world.bentobox.level.LevelsManager;
+import world.bentobox.level.calculators.Pipeliner.Priority;
 import world.bentobox.level.config.ConfigSettings;
 
 /**
@@ -80,7 +84,7 @@ class JoinLeaveListenerTest extends CommonTestSetup {
         when(settings.isCalcOnLogin()).thenReturn(false);
         PlayerJoinEvent event = new PlayerJoinEvent(player, "joined");
         listener.onPlayerJoin(event);
-        verify(manager, never()).calculateLevel(any(), any());
+        verify(manager, never()).calculateLevel(any(), any(), any(Priority.class));
     }
 
     @Test
@@ -88,7 +92,7 @@ class JoinLeaveListenerTest extends CommonTestSetup {
         when(settings.isCalcOnLogin()).thenReturn(true);
         PlayerJoinEvent event = new PlayerJoinEvent(player, "joined");
         listener.onPlayerJoin(event);
-        verify(manager).calculateLevel(any(UUID.class), any());
+        verify(manager).calculateLevel(any(UUID.class), any(), eq(Priority.BACKGROUND));
     }
 
     @Test
@@ -97,7 +101,7 @@ class JoinLeaveListenerTest extends CommonTestSetup {
         when(im.getIsland(any(World.class), any(UUID.class))).thenReturn(null);
         PlayerJoinEvent event = new PlayerJoinEvent(player, "joined");
         listener.onPlayerJoin(event);
-        verify(manager, never()).calculateLevel(any(), any());
+        verify(manager, never()).calculateLevel(any(), any(), any(Priority.class));
     }
 
     @Test
@@ -106,6 +110,31 @@ class JoinLeaveListenerTest extends CommonTestSetup {
         when(settings.getGameModes()).thenReturn(List.of("BSkyBlock")); // exclude this game mode
         PlayerJoinEvent event = new PlayerJoinEvent(player, "joined");
         listener.onPlayerJoin(event);
-        verify(manager, never()).calculateLevel(any(), any());
+        verify(manager, never()).calculateLevel(any(), any(), any(Priority.class));
+    }
+
+    @Test
+    void testJoinUpdatesTopTenPermission() {
+        PlayerJoinEvent event = new PlayerJoinEvent(player, "joined");
+        listener.onPlayerJoin(event);
+        verify(manager).updateTopTenPermission(uuid);
+    }
+
+    @Test
+    void testJoinPrefetchesIslands() {
+        PlayerJoinEvent event = new PlayerJoinEvent(player, "joined");
+        listener.onPlayerJoin(event);
+        verify(manager).prefetchIslands(uuid);
+    }
+
+    @Test
+    void testQuitUpdatesTopTenPermissionNextTick() {
+        PlayerQuitEvent event = new PlayerQuitEvent(player, "left");
+        listener.onPlayerQuit(event);
+        verify(manager, never()).updateTopTenPermission(any());
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(sch).runTask(eq(plugin), task.capture());
+        task.getValue().run();
+        verify(manager).updateTopTenPermission(uuid);
     }
 }
@@ -0,0 +1,84 @@
+package world.bentobox.level.listeners;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.World.Environment;
+import org.bukkit.block.Block;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import world.bentobox.bentobox.BentoBox;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.IslandWorldManager;
+import world.bentobox.bentobox.managers.IslandsManager;
+import world.bentobox.level.Level;
+import world.bentobox.level.LevelsManager;
+
+/**
+ * Tests for {@link LiveLevelListener}
+ */
+class LiveLevelListenerTest {
+
+    private LevelsManager manager;
+    private Island island;
+    private World world;
+    private LiveLevelListener listener;
+
+    @BeforeEach
+    void setUp() {
+        Level addon = mock(Level.class);
+        manager = mock(LevelsManager.class);
+        island = mock(Island.class);
+        world = mock(World.class);
+        when(world.getEnvironment()).thenReturn(Environment.NORMAL);
+        when(island.getOwner()).thenReturn(UUID.randomUUID());
+        when(island.getWorld()).thenReturn(world);
+        IslandsManager im = mock(IslandsManager.class);
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.of(island));
+        BentoBox plugin = mock(BentoBox.class);
+        IslandWorldManager iwm = mock(IslandWorldManager.class);
+        when(plugin.getIWM()).thenReturn(iwm);
+        when(addon.getPlugin()).thenReturn(plugin);
+        when(addon.getIslands()).thenReturn(im);
+        when(addon.getManager()).thenReturn(manager);
+        when(addon.isRegisteredGameModeWorld(world)).thenReturn(true);
+        listener = new LiveLevelListener(addon);
+    }
+
+    private BlockBreakEvent breakBlock(Material type) {
+        Block block = mock(Block.class);
+        when(block.getWorld()).thenReturn(world);
+        when(block.getType()).thenReturn(type);
+        when(block.getLocation()).thenReturn(mock(Location.class));
+        when(block.getY()).thenReturn(64);
+        BlockBreakEvent e = mock(BlockBreakEvent.class);
+        when(e.getBlock()).thenReturn(block);
+        return e;
+    }
+
+    @Test
+    void testBreakBlock() {
+        listener.onBlockBreak(breakBlock(Material.STONE));
+        verify(manager).applyBlockChange(island, Material.STONE, false, -1);
+    }
+
+    @Test
+    void testBreakSpawnerIsReconciled() {
+        listener.onBlockBreak(breakBlock(Material.SPAWNER));
+        verify(manager, never()).applyBlockChange(any(), any(), anyBoolean(), anyInt());
+        verify(manager).reconcileLater(island);
+    }
+}
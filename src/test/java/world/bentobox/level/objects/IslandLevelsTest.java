@@ -2,9 +2,12 @@ package world.bentobox.level.objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.bukkit.Material;
@@ -163,6 +166,35 @@ class IslandLevelsTest {
         assertEquals(4, result.get(Material.SAND));
     }
 
+    @Test
+    void testGetMdCountConvertsOnce() {
+        Map<Object, Integer> map = new HashMap<>();
+        map.put("STONE", 10);
+        islandLevels.setMdCount(map);
+
+        Map<Object, Integer> result = islandLevels.getMdCount();
+        assertSame(result, islandLevels.getMdCount(), "Converted counts should not be copied again");
+        // Changes to the counts are kept
+        result.put(Material.DIRT, 2);
+        assertEquals(2, islandLevels.getMdCount().get(Material.DIRT));
+    }
+
+    @Test
+    void testGetUwCountTypedMapIsNotCopied() {
+        Map<Object, Integer> map = new HashMap<>();
+        map.put(Material.SAND, 4);
+        islandLevels.setUwCount(map);
+        assertSame(map, islandLevels.getUwCount());
+    }
+
+    @Test
+    void testGetCountsMissingInLegacyData() {
+        islandLevels.setMdCount(null);
+        islandLevels.setUwCount(null);
+        assertTrue(islandLevels.getMdCount().isEmpty());
+        assertTrue(islandLevels.getUwCount().isEmpty());
+    }
+
     // --- Donation API ---
 
     @Test
@@ -223,6 +255,39 @@ class IslandLevelsTest {
         assertEquals(19L, islandLevels.getDonatedPoints());
     }
 
+    @Test
+    void testDonationLogIsBounded() {
+        for (int i = 0; i < 150; i++) {
+            islandLevels.addDonation(i % 2 == 0 ? "donor-a" : "donor-b", "STONE", 1, 2L);
+        }
+        assertEquals(IslandLevels.DONATION_LOG_SIZE, islandLevels.getDonationLog().size());
+        List<IslandLevels.DonationRecord> archived = islandLevels.takeArchivedDonations();
+        assertEquals(50, archived.size());
+        assertTrue(islandLevels.takeArchivedDonations().isEmpty());
+        // Totals still include the archived donations
+        assertEquals(150, islandLevels.getDonatedBlocks().get("STONE"));
+        assertEquals(300L, islandLevels.getDonatedPoints());
+        assertEquals(150L, islandLevels.getDonorPoints().get("donor-a"));
+        assertEquals(150L, islandLevels.getDonorPoints().get("donor-b"));
+    }
+
+    @Test
+    void testDonorPointsFromLegacyLog() {
+        List<IslandLevels.DonationRecord> log = new ArrayList<>();
+        log.add(new IslandLevels.DonationRecord(1L, "donor-a", "STONE", 1, 5L));
+        log.add(new IslandLevels.DonationRecord(2L, "donor-a", "DIRT", 1, 1L));
+        log.add(new IslandLevels.DonationRecord(3L, "donor-b", "STONE", 1, 5L));
+        islandLevels.setDonationLog(log);
+        assertEquals(Map.of("donor-a", 6L, "donor-b", 5L), islandLevels.getDonorPoints());
+    }
+
+    @Test
+    void testEstimateSizeGrowsWithCounts() {
+        long empty = islandLevels.estimateSize();
+        islandLevels.addDonation("donor-uuid", "STONE", 3, 15L);
+        assertTrue(islandLevels.estimateSize() > empty);
+    }
+
     // --- Deprecated initialLevel backwards-compat ---
 
     @Test
@@ -0,0 +1,67 @@
+package world.bentobox.level.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.level.Level;
+import world.bentobox.level.objects.IslandLevels;
+
+/**
+ * Tests for {@link BulkLoader}
+ */
+class BulkLoaderTest {
+
+    private Level addon;
+    private Database<IslandLevels> handler;
+    private List<String> ids;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        addon = mock(Level.class);
+        handler = mock(Database.class);
+        ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String id = "island" + i;
+            ids.add(id);
+            // Every tenth island has no level data
+            if (i % 10 != 0) {
+                when(handler.objectExists(id)).thenReturn(true);
+                when(handler.loadObject(id)).thenReturn(new IslandLevels(id));
+            }
+        }
+    }
+
+    @Test
+    void testLoad() {
+        Set<String> loaded = ConcurrentHashMap.newKeySet();
+        BulkLoader<IslandLevels> loader = new BulkLoader<>(addon, handler, 4, "island levels");
+        assertEquals(180, loader.load(ids, il -> loaded.add(il.getUniqueId())));
+        assertEquals(ids.stream().filter(id -> !id.endsWith("0")).collect(Collectors.toSet()), loaded);
+        verify(addon, atLeastOnce()).log(startsWith("Loaded 200 of 200 island levels"));
+    }
+
+    @Test
+    void testLoadFailure() {
+        when(handler.loadObject("island1")).thenThrow(new IllegalStateException("broken"));
+        BulkLoader<IslandLevels> loader = new BulkLoader<>(addon, handler, 2, "island levels");
+        assertEquals(179, loader.load(ids, il -> {}));
+        verify(addon).logError(startsWith("Could not load island1"));
+        verify(addon, atLeastOnce()).log(anyString());
+    }
+}
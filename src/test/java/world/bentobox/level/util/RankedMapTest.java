@@ -0,0 +1,90 @@
+package world.bentobox.level.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link RankedMap}
+ */
+class RankedMapTest {
+
+    private RankedMap map;
+
+    @BeforeEach
+    void setUp() {
+        map = new RankedMap();
+        for (int i = 0; i < 100; i++) {
+            map.put("island" + i, (long) i);
+        }
+    }
+
+    @Test
+    void testGetPosition() {
+        assertEquals(0, map.getPosition("island99"));
+        assertEquals(99, map.getPosition("island0"));
+        assertEquals(-1, map.getPosition("unknown"));
+        // Moving an island updates its position
+        map.put("island0", 1000L);
+        assertEquals(0, map.getPosition("island0"));
+        assertEquals(1, map.getPosition("island99"));
+        // Same level is ordered by unique ID
+        map.put("a", 50L);
+        assertEquals(map.getPosition("island50") - 1, map.getPosition("a"));
+    }
+
+    @Test
+    void testCountAbove() {
+        assertEquals(0, map.countAbove(99));
+        assertEquals(49, map.countAbove(50));
+        assertEquals(100, map.countAbove(-1));
+        map.remove("island75");
+        assertEquals(48, map.countAbove(50));
+    }
+
+    @Test
+    void testGetTop() {
+        Map<String, Long> top = map.getTop(3, 0);
+        assertEquals(List.of("island99", "island98", "island97"), List.copyOf(top.keySet()));
+        // Only levels above zero
+        assertEquals(99, map.getTop(200, 0).size());
+    }
+
+    @Test
+    void testRemoveThroughViews() {
+        map.keySet().removeIf(k -> k.endsWith("9"));
+        assertEquals(90, map.size());
+        assertNull(map.get("island99"));
+        assertEquals(-1, map.getPosition("island99"));
+        assertEquals(0, map.getPosition("island98"));
+        map.clear();
+        assertEquals(0, map.countAbove(Long.MIN_VALUE));
+        assertFalse(map.containsKey("island98"));
+    }
+
+    @Test
+    void testTopSnapshot() {
+        RankedMap ranked = new RankedMap(3);
+        ranked.putAll(map);
+        Map<String, Long> top = ranked.getTopSnapshot();
+        assertEquals(List.of("island99", "island98", "island97"), List.copyOf(top.keySet()));
+        // Changes below the top keep the same snapshot
+        ranked.put("island10", 20L);
+        ranked.remove("island5");
+        assertSame(top, ranked.getTopSnapshot());
+        // Changes that reach the top make a new snapshot
+        ranked.put("island0", 98L);
+        assertEquals(List.of("island99", "island0", "island98"), List.copyOf(ranked.getTopSnapshot().keySet()));
+        ranked.remove("island99");
+        assertEquals(List.of("island0", "island98", "island97"), List.copyOf(ranked.getTopSnapshot().keySet()));
+        ranked.put("island0", 1L);
+        assertEquals(List.of("island98", "island97", "island96"), List.copyOf(ranked.getTopSnapshot().keySet()));
+    }
+}